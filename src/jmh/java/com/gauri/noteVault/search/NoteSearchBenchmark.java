@@ -0,0 +1,122 @@
+package com.gauri.noteVault.search;
+
+import com.gauri.noteVault.NoteVaultApplication;
+import com.gauri.noteVault.dto.NoteResponseDTO;
+import com.gauri.noteVault.entity.User;
+import com.gauri.noteVault.repository.UserRepository;
+import com.gauri.noteVault.service.NoteService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search through NoteService against an embedded H2 database seeded with synthetic notes.
+ * engine=memory uses the in-memory index, engine=sql the LIKE query the service falls back to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoteSearchBenchmark {
+
+    private static final String[] WORDS = {
+            "vault", "meeting", "budget", "travel", "recipe", "project", "deadline", "invoice", "garden",
+            "release", "backlog", "design", "review", "holiday", "workout", "reading", "grocery", "family",
+            "migration", "database", "kitchen", "concert", "feedback", "roadmap", "hiring", "ticket"
+    };
+
+    @Param({"1000", "10000"})
+    public int noteCount;
+
+    @Param({"memory", "sql"})
+    public String engine;
+
+    @Param({"budget", "data", "project deadline"})
+    public String query;
+
+    private ConfigurableApplicationContext context;
+    private NoteService noteService;
+    private Long userId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(NoteVaultApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:search-bench;DB_CLOSE_DELAY=-1;MODE=MySQL",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.open-in-view=false",
+                        "jwt.secret=benchmark-secret-benchmark-secret-0123456789",
+                        "jwt.expiration-ms=3600000",
+                        "notes.search.engine=" + engine,
+                        "logging.level.com.gauri.noteVault=WARN")
+                .run();
+        noteService = context.getBean(NoteService.class);
+
+        userId = context.getBean(UserRepository.class).save(User.builder()
+                .username("bench")
+                .password("unused")
+                .roles("USER")
+                .build()).getId();
+
+        // Seed through the import path so the search index sees every note
+        Random random = new Random(42);
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < noteCount; i++) {
+            ndjson.append("{\"title\":\"").append(sentence(random, 4))
+                    .append("\",\"content\":\"").append(sentence(random, 60))
+                    .append("\",\"tags\":[\"").append(WORDS[random.nextInt(WORDS.length)]).append("\"]}\n");
+        }
+        noteService.importNotes(userId, new ByteArrayInputStream(ndjson.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Slice<NoteResponseDTO> searchFirstPage() {
+        return noteService.list(userId, query, null, null, PageRequest.of(0, 20), false, true);
+    }
+
+    @Benchmark
+    public Slice<NoteResponseDTO> searchByRelevance() {
+        return noteService.list(userId, query, null, null, PageRequest.of(0, 20), true, true);
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            sentence.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sentence.toString();
+    }
+}
@@ -0,0 +1,78 @@
+package com.gauri.noteVault.search;
+
+import com.gauri.noteVault.datasource.Shards;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Facet counts and multi-tag filters for one user with many tagged notes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoteTagIndexBenchmark {
+
+    private static final long USER_ID = 1L;
+    private static final List<String> COMMON_PAIR = List.of("tag-0", "tag-1");
+    private static final List<String> RARE_PAIR = List.of("tag-0", "tag-40");
+
+    @Param({"10000", "100000"})
+    public int notes;
+
+    private NoteTagIndex index;
+
+    @Setup
+    public void setUp() {
+        // The repository is only needed for rebuilds, which this benchmark never runs
+        index = new NoteTagIndex(null, Shards.single(), 1000);
+        Random random = new Random(42);
+        for (long id = 1; id <= notes; id++) {
+            List<String> tags = new ArrayList<>();
+            // Skewed popularity: tag-0 is on about half the notes, tag-49 on about 1 in 50
+            for (int t = 0; t < 50; t++) {
+                if (random.nextInt(t + 2) == 0) {
+                    tags.add("tag-" + t);
+                }
+            }
+            index.put(USER_ID, id, tags);
+        }
+    }
+
+    @Benchmark
+    public Map<String, Long> counts() {
+        return index.counts(USER_ID);
+    }
+
+    @Benchmark
+    public Page<Long> matchAllCommon() {
+        return index.match(USER_ID, COMMON_PAIR, true, PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public Page<Long> matchAllRare() {
+        return index.match(USER_ID, RARE_PAIR, true, PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public Page<Long> matchAnyDeepPage() {
+        return index.match(USER_ID, RARE_PAIR, false, PageRequest.of(100, 20));
+    }
+}
@@ -0,0 +1,64 @@
+package com.gauri.noteVault.service;
+
+import com.gauri.noteVault.dto.NoteResponseDTO;
+import com.gauri.noteVault.entity.Note;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Entity to DTO mapping, both from the entity's own tag collection and from tags loaded in bulk
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({"0", "5", "50"})
+    public int tagCount;
+
+    private Note note;
+    private List<String> tags;
+
+    @Setup
+    public void setUp() {
+        tags = new ArrayList<>();
+        for (int i = 0; i < tagCount; i++) {
+            tags.add("tag-" + i);
+        }
+        note = Note.builder()
+                .id(1L)
+                .title("Benchmark note")
+                .content("x".repeat(2_000))
+                .tags(tags)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .version(3L)
+                .changeSeq(7L)
+                .build();
+    }
+
+    @Benchmark
+    public NoteResponseDTO toDto() {
+        return Mapper.toDto(note);
+    }
+
+    @Benchmark
+    public NoteResponseDTO toDtoWithLoadedTags() {
+        return Mapper.toDto(note, tags);
+    }
+}
@@ -0,0 +1,61 @@
+package com.gauri.noteVault.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gauri.noteVault.dto.NoteResponseDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// JSON encoding of a listing response as the web layer writes it
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageSerializationBenchmark {
+
+    @Param({"10", "50", "100", "500"})
+    public int pageSize;
+
+    @Param({"200", "5000"})
+    public int contentLength;
+
+    private ObjectMapper objectMapper;
+    private Page<NoteResponseDTO> page;
+
+    @Setup
+    public void setUp() {
+        // Same module and date settings as the ObjectMapper Spring Boot configures
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<NoteResponseDTO> notes = new ArrayList<>(pageSize);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < pageSize; i++) {
+            notes.add(new NoteResponseDTO((long) i, "Note " + i, "c".repeat(contentLength),
+                    List.of("work", "tag-" + i), now, now, 1L));
+        }
+        page = new PageImpl<>(notes, PageRequest.of(0, pageSize), 10_000);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,164 @@
+package com.gauri.noteVault.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded, TTL-evicting in-process cache.
+ * Keys are spread over independently locked LRU segments so concurrent requests rarely contend,
+ * and each segment drops its least recently used entry once it is full.
+ * Read-through callers that load outside the segment lock take a {@link #ticket} before loading and store with
+ * {@link #putIfUnchanged}, so a value loaded before a concurrent invalidation is dropped instead of cached.
+ */
+public class BoundedCache<K, V> {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+    private final long ttlNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public BoundedCache(int maxSize, Duration ttl) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1");
+        }
+        int count = Math.min(MAX_SEGMENTS, Integer.highestOneBit(maxSize));
+        int perSegment = (maxSize + count - 1) / count;
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(perSegment, evictions);
+        }
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    // Cached value, or null when absent or expired
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            Entry<V> entry = segment.get(key);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            if (entry.expiresAt - System.nanoTime() <= 0) {
+                segment.remove(key);
+                evictions.increment();
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        }
+    }
+
+    public void put(K key, V value) {
+        put(key, value, ttlNanos);
+    }
+
+    // Store with a shorter lifetime than the cache default, e.g. bounded by a token's expiry
+    public void put(K key, V value, Duration ttl) {
+        put(key, value, Math.min(ttlNanos, ttl.toNanos()));
+    }
+
+    private void put(K key, V value, long lifetimeNanos) {
+        if (lifetimeNanos <= 0) {
+            return;
+        }
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, new Entry<>(value, System.nanoTime() + lifetimeNanos));
+        }
+    }
+
+    // Invalidation counter of the key's segment; pass it to putIfUnchanged after loading the value
+    public long ticket(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.invalidations;
+        }
+    }
+
+    // Store only if nothing in the key's segment was invalidated since the ticket was taken
+    public boolean putIfUnchanged(K key, V value, long ticket) {
+        if (ttlNanos <= 0) {
+            return false;
+        }
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            if (segment.invalidations != ticket) {
+                return false;
+            }
+            segment.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+            return true;
+        }
+    }
+
+    public void invalidate(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.remove(key);
+            segment.invalidations++;
+        }
+    }
+
+    public void invalidateAll() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+                segment.invalidations++;
+            }
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size());
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & (segments.length - 1)];
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    // Access-ordered map that evicts its eldest entry when over capacity; guarded by its own monitor
+    private static final class Segment<K, V> extends LinkedHashMap<K, Entry<V>> {
+
+        private final int capacity;
+        private final LongAdder evictions;
+        private long invalidations;
+
+        Segment(int capacity, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
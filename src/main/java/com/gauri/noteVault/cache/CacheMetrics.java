@@ -0,0 +1,35 @@
+package com.gauri.noteVault.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.function.Supplier;
+
+// Publishes a cache's counters under the standard cache.* meter names; values are read at scrape time
+public final class CacheMetrics {
+
+    private CacheMetrics() {
+    }
+
+    public static void bind(MeterRegistry registry, String cacheName, Supplier<CacheStats> stats) {
+        FunctionCounter.builder("cache.gets", stats, s -> s.get().hits())
+                .tag("cache", cacheName)
+                .tag("result", "hit")
+                .description("Cache lookups that found a live entry")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", stats, s -> s.get().misses())
+                .tag("cache", cacheName)
+                .tag("result", "miss")
+                .description("Cache lookups that found no live entry")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", stats, s -> s.get().evictions())
+                .tag("cache", cacheName)
+                .description("Entries dropped for size or expiry")
+                .register(registry);
+        Gauge.builder("cache.size", stats, s -> s.get().size())
+                .tag("cache", cacheName)
+                .description("Entries currently held")
+                .register(registry);
+    }
+}
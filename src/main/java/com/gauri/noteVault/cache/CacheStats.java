@@ -0,0 +1,10 @@
+package com.gauri.noteVault.cache;
+
+// Point-in-time counters of a BoundedCache
+public record CacheStats(long hits, long misses, long evictions, long size) {
+
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,236 @@
+package com.gauri.noteVault.config;
+
+import com.gauri.noteVault.datasource.Shards;
+import com.gauri.noteVault.entity.CompressedTextConverter;
+import com.gauri.noteVault.entity.Note;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * One-off data fixes that must run after the schema is in place and before the first request.
+ * They run on every shard; shards other than shard-0 are given the schema first if they are empty.
+ */
+@Component
+public class DatabaseInitializer implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseInitializer.class);
+
+    // Must match the allocationSize of the note id generator
+    static final int NOTE_ID_ALLOCATION_SIZE = 50;
+
+    // Rows moved per statement round when migrating note content
+    static final int CONTENT_MIGRATION_BATCH = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Shards shards;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public DatabaseInitializer(JdbcTemplate jdbcTemplate, Shards shards, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shards = shards;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        shards.forEach(shard -> {
+            if (Shards.DIRECTORY.equals(shard)) {
+                recordExistingUsersInDirectory();
+                createMissingNoteCounters();
+            } else {
+                createShardSchema(shard);
+            }
+            alignNoteIdSequence(shards.noteIdBase(shard));
+            countNotesForCounters();
+            migrateNoteContent();
+            backfillNoteExcerpts();
+        });
+    }
+
+    // A new shard is created from the entity mappings, with its note ids starting at the shard's own range
+    private void createShardSchema(String shard) {
+        try {
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notes WHERE 1 = 0", Long.class);
+            return;
+        } catch (DataAccessException ex) {
+            logger.info("Creating schema on {}", shard);
+        }
+        entityManagerFactory.unwrap(SessionFactory.class).getSchemaManager().exportMappedObjects(false);
+        long floor = shards.noteIdBase(shard) + NOTE_ID_ALLOCATION_SIZE + 1;
+        try {
+            jdbcTemplate.execute("ALTER SEQUENCE note_seq RESTART WITH " + floor);
+        } catch (DataAccessException ex) {
+            // A table-backed sequence is moved by alignNoteIdSequence instead
+            logger.debug("Note id sequence restart skipped on {}: {}", shard, ex.getMessage());
+        }
+    }
+
+    // Users who signed up before sharding keep their notes on shard-0; new users are placed by the hash ring
+    private void recordExistingUsersInDirectory() {
+        try {
+            int recorded = jdbcTemplate.update("""
+                    INSERT INTO user_shards (user_id, shard)
+                    SELECT u.id, ? FROM users u
+                    WHERE NOT EXISTS (SELECT 1 FROM user_shards s WHERE s.user_id = u.id)
+                    """, Shards.DIRECTORY);
+            if (recorded > 0 && shards.isSharded()) {
+                logger.info("Recorded {} existing users on {}", recorded, Shards.DIRECTORY);
+            }
+        } catch (DataAccessException ex) {
+            logger.warn("Shard directory backfill skipped: {}", ex.getMessage());
+        }
+    }
+
+    // Notes created before the switch from IDENTITY ids must never collide with pooled sequence ids;
+    // only ids in this shard's range count, notes moved in from other shards keep their own ids
+    private void alignNoteIdSequence(long base) {
+        try {
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM notes WHERE id >= ? AND id < ?",
+                    Long.class, base, base + Shards.NOTE_ID_RANGE);
+            long floor = (maxId != null ? maxId : base) + NOTE_ID_ALLOCATION_SIZE + 1;
+            int updated = jdbcTemplate.update("UPDATE note_seq SET next_val = ? WHERE next_val < ?", floor, floor);
+            if (updated > 0) {
+                logger.info("Moved note id sequence past existing notes (next value: {})", floor);
+            }
+        } catch (DataAccessException ex) {
+            // Databases with native sequences have no note_seq table to fix
+            logger.debug("Note id sequence alignment skipped: {}", ex.getMessage());
+        }
+    }
+
+    // Accounts registered before change tracking need a counter row for their next write;
+    // users whose notes live on another shard have theirs there
+    private void createMissingNoteCounters() {
+        try {
+            int created = jdbcTemplate.update("""
+                    INSERT INTO user_note_counters (user_id, change_seq)
+                    SELECT u.id, 0 FROM users u
+                    WHERE NOT EXISTS (SELECT 1 FROM user_note_counters c WHERE c.user_id = u.id)
+                    AND NOT EXISTS (SELECT 1 FROM user_shards s WHERE s.user_id = u.id AND s.shard <> ?)
+                    """, Shards.DIRECTORY);
+            if (created > 0) {
+                logger.info("Created note counters for {} existing users", created);
+            }
+        } catch (DataAccessException ex) {
+            logger.warn("Note counter backfill skipped: {}", ex.getMessage());
+        }
+    }
+
+    // Counters created before note counting, or by a write that had to create the row, need a first count;
+    // from then on every note write keeps it current
+    private void countNotesForCounters() {
+        try {
+            int counted = jdbcTemplate.update("""
+                    UPDATE user_note_counters
+                    SET note_count = (SELECT COUNT(*) FROM notes n WHERE n.user_id = user_note_counters.user_id)
+                    WHERE note_count IS NULL
+                    """);
+            if (counted > 0) {
+                logger.info("Counted notes for {} users", counted);
+            }
+        } catch (DataAccessException ex) {
+            logger.warn("Note count backfill skipped: {}", ex.getMessage());
+        }
+    }
+
+    // Notes written before compressed storage still hold their text in the old content column.
+    // LIMIT rather than FETCH FIRST: MySQL only accepts the former.
+    private void migrateNoteContent() {
+        if (!columnExists("notes", "content")) {
+            // Schemas created after the switch have no old content column
+            return;
+        }
+        CompressedTextConverter converter = new CompressedTextConverter();
+        int migrated = 0;
+        try {
+            long afterId = Long.MIN_VALUE;
+            List<Map<String, Object>> rows;
+            do {
+                rows = jdbcTemplate.queryForList("""
+                        SELECT id, content FROM notes
+                        WHERE content IS NOT NULL AND content_data IS NULL AND id > ?
+                        ORDER BY id
+                        LIMIT ?
+                        """, afterId, CONTENT_MIGRATION_BATCH);
+                List<Object[]> updates = rows.stream()
+                        .map(row -> new Object[]{
+                                converter.convertToDatabaseColumn((String) row.get("content")), row.get("id")})
+                        .toList();
+                jdbcTemplate.batchUpdate("UPDATE notes SET content_data = ?, content = NULL WHERE id = ?", updates);
+                migrated += rows.size();
+                if (!rows.isEmpty()) {
+                    afterId = ((Number) rows.get(rows.size() - 1).get("id")).longValue();
+                }
+            } while (rows.size() == CONTENT_MIGRATION_BATCH);
+        } catch (DataAccessException ex) {
+            // Serving these notes would show them empty, and the next edit would orphan the old text
+            logger.error("Note content migration failed after {} notes", migrated, ex);
+            throw ex;
+        }
+        if (migrated > 0) {
+            logger.info("Moved content of {} notes to compressed storage", migrated);
+        }
+    }
+
+    // Notes written before excerpts were stored have content but no excerpt
+    private void backfillNoteExcerpts() {
+        CompressedTextConverter converter = new CompressedTextConverter();
+        int filled = 0;
+        try {
+            long afterId = Long.MIN_VALUE;
+            List<Object[]> updates;
+            do {
+                updates = jdbcTemplate.query("""
+                        SELECT id, content_data FROM notes
+                        WHERE excerpt IS NULL AND content_data IS NOT NULL AND id > ?
+                        ORDER BY id
+                        LIMIT ?
+                        """, (rs, rowNum) -> new Object[]{
+                        Note.excerptOf(converter.convertToEntityAttribute(rs.getBytes("content_data")), Note.EXCERPT_LENGTH),
+                        rs.getLong("id")}, afterId, CONTENT_MIGRATION_BATCH);
+                jdbcTemplate.batchUpdate("UPDATE notes SET excerpt = ? WHERE id = ?", updates);
+                filled += updates.size();
+                if (!updates.isEmpty()) {
+                    afterId = (Long) updates.get(updates.size() - 1)[1];
+                }
+            } while (updates.size() == CONTENT_MIGRATION_BATCH);
+        } catch (DataAccessException ex) {
+            // Not fatal: notes without an excerpt only show an empty preview in the summary view
+            logger.error("Note excerpt backfill failed after {} notes", filled, ex);
+        }
+        if (filled > 0) {
+            logger.info("Stored excerpts for {} existing notes", filled);
+        }
+    }
+
+    // Table and column names are matched without regard to case, which differs between databases
+    private boolean columnExists(String table, String column) {
+        Boolean exists = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String name : List.of(table, table.toUpperCase(Locale.ROOT))) {
+                try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, name, null)) {
+                    while (columns.next()) {
+                        if (column.equalsIgnoreCase(columns.getString("COLUMN_NAME"))) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+}
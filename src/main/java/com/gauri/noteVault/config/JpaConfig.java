@@ -0,0 +1,28 @@
+package com.gauri.noteVault.config;
+
+import com.gauri.noteVault.metrics.StatementCounter;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JpaConfig {
+
+    // Send inserts/updates (including note_tags rows) as JDBC batches; explicit spring.jpa.properties still win
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatchingCustomizer(@Value("${notes.jdbc.batch-size:50}") int batchSize) {
+        return properties -> {
+            properties.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE, batchSize);
+            properties.putIfAbsent(AvailableSettings.ORDER_INSERTS, true);
+            properties.putIfAbsent(AvailableSettings.ORDER_UPDATES, true);
+        };
+    }
+
+    // Per-request SQL statement counts for StatementCountFilter
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer() {
+        return properties -> properties.putIfAbsent(AvailableSettings.STATEMENT_INSPECTOR, new StatementCounter());
+    }
+}
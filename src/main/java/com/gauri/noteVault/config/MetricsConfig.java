@@ -0,0 +1,36 @@
+package com.gauri.noteVault.config;
+
+import com.gauri.noteVault.cache.CacheMetrics;
+import com.gauri.noteVault.security.JwtUtil;
+import com.gauri.noteVault.security.PrincipalCache;
+import com.gauri.noteVault.service.NoteDtoCache;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+
+/**
+ * Application metrics, scraped from /actuator/prometheus.
+ * Endpoints (http.server.requests) and repository queries (spring.data.repository.invocations) are timed by
+ * Spring Boot itself; this adds @Timed support for services and publishes the in-process caches.
+ */
+@Configuration
+@PropertySource("classpath:notevault-defaults.properties")
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public MeterBinder cacheMetrics(PrincipalCache principalCache, NoteDtoCache noteCache, JwtUtil jwtUtil) {
+        return registry -> {
+            CacheMetrics.bind(registry, "principals", principalCache::stats);
+            CacheMetrics.bind(registry, "notes", noteCache::stats);
+            CacheMetrics.bind(registry, "verified-tokens", jwtUtil::verifiedCacheStats);
+        };
+    }
+}
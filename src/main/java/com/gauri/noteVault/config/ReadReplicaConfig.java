@@ -0,0 +1,76 @@
+package com.gauri.noteVault.config;
+
+import com.gauri.noteVault.datasource.RecentWrites;
+import com.gauri.noteVault.datasource.ReplicaPool;
+import com.gauri.noteVault.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+
+/**
+ * Read replicas, enabled by listing their JDBC URLs in notevault.datasource.replica-urls.
+ * The primary keeps its usual spring.datasource settings; replicas share its credentials unless
+ * notevault.datasource.replica-username/-password are set. Without replica URLs the auto-configured
+ * single datasource is used unchanged.
+ */
+@Configuration
+@ConditionalOnProperty(name = "notevault.datasource.replica-urls")
+public class ReadReplicaConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadReplicaConfig.class);
+
+    // Not an injection candidate: everything else must go through the routing datasource
+    @Bean(autowireCandidate = false)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaPool replicaPool(DataSourceProperties properties,
+                                   @Value("${notevault.datasource.replica-urls}") List<String> urls,
+                                   @Value("${notevault.datasource.replica-username:}") String username,
+                                   @Value("${notevault.datasource.replica-password:}") String password,
+                                   @Value("${notevault.datasource.replica-pool-size:10}") int poolSize,
+                                   @Value("${notevault.datasource.replica-retry-ms:30000}") long retryMs) {
+        List<ReplicaPool.Replica> replicas = new ArrayList<>();
+        for (String url : urls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            String name = "replica-" + replicas.size();
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName(name);
+            dataSource.setJdbcUrl(url.trim());
+            dataSource.setUsername(username.isEmpty() ? properties.determineUsername() : username);
+            dataSource.setPassword(password.isEmpty() ? properties.determinePassword() : password);
+            dataSource.setMaximumPoolSize(poolSize);
+            dataSource.setReadOnly(true);
+            // Start even when a replica is down; it is marked unavailable on first use instead
+            dataSource.setInitializationFailTimeout(-1);
+            replicas.add(new ReplicaPool.Replica(name, dataSource));
+        }
+        logger.info("Routing read-only transactions to {} read replicas", replicas.size());
+        return new ReplicaPool(replicas, retryMs);
+    }
+
+    // The lazy proxy defers the routing decision to the first statement, when the read-only flag is known
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties, ReplicaPool replicaPool, RecentWrites recentWrites) {
+        return new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primaryDataSource(properties), replicaPool, recentWrites));
+    }
+}
@@ -0,0 +1,10 @@
+package com.gauri.noteVault.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Background jobs such as tombstone compaction
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -3,6 +3,13 @@ package com.gauri.noteVault.config;
 import com.gauri.noteVault.repository.UserRepository;
 import com.gauri.noteVault.security.JwtAuthFilter;
 import com.gauri.noteVault.security.JwtUtil;
+import com.gauri.noteVault.security.PrincipalCache;
+import com.gauri.noteVault.security.RateLimitFilter;
+import com.gauri.noteVault.security.RateLimiter;
+import com.gauri.noteVault.security.TimedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -26,32 +33,52 @@ public class SecurityConfig {
 
     private final JwtUtil jwtUtil;
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final boolean trustClaims;
+    private final MeterRegistry meterRegistry;
+    private final RateLimiter rateLimiter;
+    private final int managementPort;
 
-    public SecurityConfig(JwtUtil jwtUtil, UserRepository userRepository) {
+    public SecurityConfig(JwtUtil jwtUtil, UserRepository userRepository, PrincipalCache principalCache,
+                          @Value("${jwt.trust-claims:false}") boolean trustClaims, MeterRegistry meterRegistry,
+                          RateLimiter rateLimiter, @Value("${management.server.port:-1}") int managementPort) {
         this.jwtUtil = jwtUtil;
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
+        this.trustClaims = trustClaims;
+        this.meterRegistry = meterRegistry;
+        this.rateLimiter = rateLimiter;
+        this.managementPort = managementPort;
     }
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
-        JwtAuthFilter jwtAuthFilter = new JwtAuthFilter(jwtUtil, userRepository);
+        JwtAuthFilter jwtAuthFilter = new JwtAuthFilter(jwtUtil, userRepository, principalCache, trustClaims, meterRegistry);
+        RateLimitFilter rateLimitFilter = new RateLimitFilter(rateLimiter);
 
         http
                 .csrf(csrf -> csrf.disable())
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()  // note streams ending; the request was authorized when it started
                         .requestMatchers("/api/auth/**").permitAll()  // allow register/login
+                        .requestMatchers("/actuator/health").permitAll()  // probes
+                        // Metrics are only open on a separate management port, which is meant to stay on the internal network
+                        .requestMatchers(request -> managementPort > 0 && request.getLocalPort() == managementPort
+                                && "/actuator/prometheus".equals(request.getRequestURI())).permitAll()
                         .anyRequest().authenticated()
                 )
-                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(rateLimitFilter, JwtAuthFilter.class);
 
         return http.build();
     }
 
+    // Raising the strength takes effect for existing accounts on their next login (see AuthService.login)
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.bcrypt.strength:10}") int strength) {
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(strength), meterRegistry);
     }
 
     @Bean
@@ -0,0 +1,110 @@
+package com.gauri.noteVault.config;
+
+import com.gauri.noteVault.datasource.ConsistentHashRing;
+import com.gauri.noteVault.datasource.ShardDirectory;
+import com.gauri.noteVault.datasource.ShardMigrationRunner;
+import com.gauri.noteVault.datasource.ShardMigrator;
+import com.gauri.noteVault.datasource.ShardPools;
+import com.gauri.noteVault.datasource.ShardRoutingDataSource;
+import com.gauri.noteVault.datasource.Shards;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+
+/**
+ * Notes sharded by user over several databases, enabled by listing the extra databases in
+ * notevault.sharding.shard-urls. spring.datasource stays shard-0: it keeps the accounts and the
+ * user directory as well as the notes of the users placed on it. Each shard has its own pool;
+ * empty shards get their schema from DatabaseInitializer at startup.
+ * Not combined with read replicas yet: configure one or the other.
+ */
+@Configuration
+@ConditionalOnProperty(name = "notevault.sharding.shard-urls")
+public class ShardingConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardingConfig.class);
+
+    private final Environment environment;
+
+    public ShardingConfig(Environment environment) {
+        if (environment.containsProperty("notevault.datasource.replica-urls")) {
+            throw new IllegalStateException(
+                    "notevault.sharding.shard-urls and notevault.datasource.replica-urls cannot be used together");
+        }
+        this.environment = environment;
+    }
+
+    @Bean
+    public ShardPools shardPools(DataSourceProperties properties, Shards shards,
+                                 @Value("${notevault.sharding.shard-urls}") List<String> urls,
+                                 @Value("${notevault.sharding.username:}") String username,
+                                 @Value("${notevault.sharding.password:}") String password,
+                                 @Value("${notevault.sharding.pool-size:10}") int poolSize) {
+        Map<String, DataSource> pools = new LinkedHashMap<>();
+        HikariDataSource directory = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(directory));
+        pools.put(Shards.DIRECTORY, directory);
+
+        List<String> shardUrls = urls.stream().filter(url -> !url.isBlank()).map(String::trim).toList();
+        for (int i = 0; i < shardUrls.size(); i++) {
+            String name = shards.names().get(i + 1);
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName(name);
+            dataSource.setJdbcUrl(shardUrls.get(i));
+            dataSource.setUsername(username.isEmpty() ? properties.determineUsername() : username);
+            dataSource.setPassword(password.isEmpty() ? properties.determinePassword() : password);
+            dataSource.setMaximumPoolSize(poolSize);
+            pools.put(name, dataSource);
+        }
+        logger.info("Sharding notes over {}", pools.keySet());
+        return new ShardPools(pools);
+    }
+
+    @Bean
+    public ShardDirectory shardDirectory(ShardPools shardPools, Shards shards,
+                                         @Value("${notevault.sharding.ring-points:128}") int ringPoints,
+                                         @Value("${notevault.sharding.directory-cache.max-size:100000}") int cacheSize,
+                                         @Value("${notevault.sharding.directory-cache.ttl-ms:10000}") long cacheTtlMs) {
+        return new ShardDirectory(new JdbcTemplate(shardPools.get(Shards.DIRECTORY)),
+                new ConsistentHashRing(shards.names(), ringPoints), cacheSize, Duration.ofMillis(cacheTtlMs));
+    }
+
+    // The lazy proxy defers the shard choice to the first statement, as with the replica router
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardPools shardPools, ShardDirectory shardDirectory) {
+        return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shardPools.dataSources(), shardDirectory));
+    }
+
+    @Bean
+    public ShardMigrator shardMigrator(ShardPools shardPools, ShardDirectory shardDirectory,
+                                       @Value("${notevault.sharding.migration.catch-up-rounds:10}") int catchUpRounds,
+                                       @Value("${notevault.sharding.migration.catch-up-threshold:100}") long catchUpThreshold) {
+        return new ShardMigrator(shardPools.dataSources(), shardDirectory, catchUpRounds, catchUpThreshold);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "notevault.sharding.migrate")
+    public ShardMigrationRunner shardMigrationRunner(ShardMigrator shardMigrator, ConfigurableApplicationContext context,
+                                                     @Value("${notevault.sharding.migrate}") String moves) {
+        return new ShardMigrationRunner(shardMigrator, context, moves);
+    }
+}
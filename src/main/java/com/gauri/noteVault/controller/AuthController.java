@@ -8,6 +8,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
@@ -20,21 +22,23 @@ public class AuthController {
         this.authService = authService;
     }
 
-    // Register a new user
+    // Register a new user; the request thread is released while the password is hashed
     @PostMapping("/register")
-    public AuthResponse register(@RequestBody RegisterRequest request) {
+    public CompletableFuture<AuthResponse> register(@RequestBody RegisterRequest request) {
         logger.info("Register API called for username: {}", request.getUsername());
-        AuthResponse response = authService.register(request);
-        logger.info("User '{}' registered successfully", request.getUsername());
-        return response;
+        return authService.register(request).thenApply(response -> {
+            logger.info("User '{}' registered successfully", request.getUsername());
+            return response;
+        });
     }
 
-    // Login an existing user
+    // Login an existing user; the request thread is released while the password is checked
     @PostMapping("/login")
-    public AuthResponse login(@RequestBody AuthRequest request) {
+    public CompletableFuture<AuthResponse> login(@RequestBody AuthRequest request) {
         logger.info("Login API called for username: {}", request.getUsername());
-        AuthResponse response = authService.login(request);
-        logger.info("User '{}' logged in successfully", request.getUsername());
-        return response;
+        return authService.login(request).thenApply(response -> {
+            logger.info("User '{}' logged in successfully", request.getUsername());
+            return response;
+        });
     }
 }
@@ -0,0 +1,86 @@
+package com.gauri.noteVault.controller;
+
+import com.gauri.noteVault.dto.NoteResponseDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Entity tags for notes and note collections.
+ * A note's tag is {@code "<id>-<version>"}, so it can be checked against a version-only query.
+ * A collection's tag is a digest of the ids and versions it contains plus its paging totals.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String forNote(Long id, Long version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    // If-None-Match uses weak comparison, so W/ prefixes are ignored
+    static boolean matchesAny(String header, String etag) {
+        if (header == null) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || stripWeak(tag).equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Version the client expects for the given note according to If-Match.
+     * Returns null for "*" (any current version), and -1 when no listed tag belongs to this note,
+     * which can never match and so fails the precondition.
+     */
+    static Long expectedVersion(String header, Long id) {
+        String prefix = "\"" + id + "-";
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return null;
+            }
+            // If-Match uses strong comparison: weak tags never match
+            if (tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1) {
+                try {
+                    return Long.parseLong(tag.substring(prefix.length(), tag.length() - 1));
+                } catch (NumberFormatException ignored) {
+                    // Not one of ours; keep looking
+                }
+            }
+        }
+        return -1L;
+    }
+
+    static String forCollection(List<NoteResponseDTO> items, String extra) {
+        return forCollection(items, NoteResponseDTO::getId, NoteResponseDTO::getVersion, extra);
+    }
+
+    static <T> String forCollection(List<T> items, Function<T, Long> id, Function<T, Long> version, String extra) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+        digest.update(extra.getBytes(StandardCharsets.UTF_8));
+        for (T item : items) {
+            digest.update((";" + id.apply(item) + ":" + version.apply(item)).getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] hash = digest.digest();
+        return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
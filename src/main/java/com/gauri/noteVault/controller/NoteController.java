@@ -1,8 +1,18 @@
 package com.gauri.noteVault.controller;
 
+import com.gauri.noteVault.dto.CursorPageResponse;
+import com.gauri.noteVault.dto.NoteBatchRequest;
+import com.gauri.noteVault.dto.NoteBatchResult;
+import com.gauri.noteVault.dto.NoteChangesResponse;
+import com.gauri.noteVault.dto.NoteImportResult;
+import com.gauri.noteVault.dto.NoteListResponse;
 import com.gauri.noteVault.dto.NoteRequestDTO;
 import com.gauri.noteVault.dto.NoteResponseDTO;
+import com.gauri.noteVault.dto.NoteSuggestion;
+import com.gauri.noteVault.dto.NoteSummaryDTO;
+import com.gauri.noteVault.security.AuthenticatedUser;
 import com.gauri.noteVault.service.NoteService;
+import com.gauri.noteVault.stream.NoteStreams;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,10 +20,26 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/notes")
@@ -22,72 +48,291 @@ public class NoteController {
     private static final Logger logger = LoggerFactory.getLogger(NoteController.class);
 
     private final NoteService noteService;
+    private final NoteStreams noteStreams;
 
     @Autowired
-    public NoteController(NoteService noteService) {
+    public NoteController(NoteService noteService, NoteStreams noteStreams) {
         this.noteService = noteService;
+        this.noteStreams = noteStreams;
     }
 
     // Create a new note
     @PostMapping
     public ResponseEntity<NoteResponseDTO> createNote(@Valid @RequestBody NoteRequestDTO dto) {
-        String username = getCurrentUsername();
-        logger.info("Creating note for user: {}", username);
-        NoteResponseDTO created = noteService.createNote(dto, username);
-        logger.info("Note created successfully for user: {}", username);
-        return ResponseEntity.ok(created);
+        AuthenticatedUser user = getCurrentUser();
+        logger.info("Creating note for user: {}", user.username());
+        NoteResponseDTO created = noteService.createNote(dto, user.id());
+        logger.info("Note created successfully for user: {}", user.username());
+        return withValidators(ResponseEntity.ok(), created).body(created);
     }
 
-    // Get a note by its ID
+    // Get a note by its ID; If-None-Match is answered from the note's version alone
     @GetMapping("/{id}")
-    public ResponseEntity<NoteResponseDTO> getNote(@PathVariable Long id) {
-        String username = getCurrentUsername();
-        logger.info("Fetching note with ID: {} for user: {}", id, username);
-        NoteResponseDTO note = noteService.getById(id, username);
-        return ResponseEntity.ok(note);
+    public ResponseEntity<NoteResponseDTO> getNote(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        AuthenticatedUser user = getCurrentUser();
+        logger.info("Fetching note with ID: {} for user: {}", id, user.username());
+        if (ifNoneMatch != null) {
+            String current = ETags.forNote(id, noteService.getVersion(id, user.id()));
+            if (ETags.matchesAny(ifNoneMatch, current)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(current).build();
+            }
+        }
+        NoteResponseDTO note = noteService.getById(id, user.id());
+        return withValidators(ResponseEntity.ok(), note).body(note);
     }
 
-    // Update an existing note
+    // Update an existing note; with If-Match the update only applies to the version the client last saw
     @PutMapping("/{id}")
-    public ResponseEntity<NoteResponseDTO> updateNote(@PathVariable Long id, @Valid @RequestBody NoteRequestDTO dto) {
-        String username = getCurrentUsername();
-        logger.info("Updating note with ID: {} for user: {}", id, username);
-        NoteResponseDTO updated = noteService.update(id, dto, username);
-        logger.info("Note updated successfully for user: {}", username);
-        return ResponseEntity.ok(updated);
+    public ResponseEntity<NoteResponseDTO> updateNote(
+            @PathVariable Long id,
+            @Valid @RequestBody NoteRequestDTO dto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        AuthenticatedUser user = getCurrentUser();
+        logger.info("Updating note with ID: {} for user: {}", id, user.username());
+        Long expectedVersion = ifMatch != null ? ETags.expectedVersion(ifMatch, id) : null;
+        NoteResponseDTO updated = noteService.update(id, dto, user.id(), expectedVersion);
+        logger.info("Note updated successfully for user: {}", user.username());
+        return withValidators(ResponseEntity.ok(), updated).body(updated);
     }
 
     // Delete a note by ID
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteNote(@PathVariable Long id) {
-        String username = getCurrentUsername();
-        logger.info("Deleting note with ID: {} for user: {}", id, username);
-        noteService.delete(id, username);
-        logger.info("Note deleted successfully for user: {}", username);
+        AuthenticatedUser user = getCurrentUser();
+        logger.info("Deleting note with ID: {} for user: {}", id, user.username());
+        noteService.delete(id, user.id());
+        logger.info("Note deleted successfully for user: {}", user.username());
         return ResponseEntity.noContent().build();
     }
 
-    // List all notes (supports optional search and pagination)
+    // Apply many create/update/delete operations in one transaction
+    @PostMapping("/batch")
+    public ResponseEntity<List<NoteBatchResult>> applyBatch(@Valid @RequestBody NoteBatchRequest request) {
+        AuthenticatedUser user = getCurrentUser();
+        logger.info("Applying batch of {} operations for user: {}", request.getOperations().size(), user.username());
+        List<NoteBatchResult> results = noteService.applyBatch(request.getOperations(), user.id());
+        logger.info("Batch applied successfully for user: {}", user.username());
+        return ResponseEntity.ok(results);
+    }
+
+    // Export all notes as NDJSON, streamed as it is read (gzip-compressed when the client accepts it)
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportNotes(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        AuthenticatedUser user = getCurrentUser();
+        boolean gzip = acceptsGzip(acceptEncoding);
+        logger.info("Exporting notes for user: {} (gzip: {})", user.username(), gzip);
+
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+            noteService.exportNotes(user.id(), target);
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"notes.ndjson\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    // Import notes from an NDJSON or JSON array body without buffering the upload
+    // The response is only the final summary, sent once the whole body is read; progress goes to the server log
+    @PostMapping("/import")
+    public ResponseEntity<NoteImportResult> importNotes(InputStream body) throws IOException {
+        AuthenticatedUser user = getCurrentUser();
+        logger.info("Importing notes for user: {}", user.username());
+        NoteImportResult result = noteService.importNotes(user.id(), body);
+        logger.info("Import completed for user: {} ({} imported, {} failed)", user.username(), result.getImported(), result.getFailed());
+        return ResponseEntity.ok(result);
+    }
+
+    // List all notes (supports optional search, relevance ordering and pagination);
+    // count=false skips the total and answers with a Slice that only says whether there is a next page
     @GetMapping
-    public ResponseEntity<Page<NoteResponseDTO>> listNotes(
+    public ResponseEntity<Slice<NoteResponseDTO>> listNotes(
+            @RequestParam(value = "q", required = false) String query,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "tags", required = false) List<String> tags,
+            @RequestParam(value = "mode", required = false) String mode,
+            @RequestParam(value = "count", defaultValue = "true") boolean count,
+            @RequestParam(value = "view", required = false) String view
+    ) {
+        AuthenticatedUser user = getCurrentUser();
+        // view=summary is mapped to listNoteSummaries; any other view would silently get the full listing
+        if (view != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown view: " + view + " (supported: summary)");
+        }
+        Pageable pageable = PageRequest.of(page, size);
+        boolean relevance = "relevance".equalsIgnoreCase(sort);
+        logger.info("Listing notes for user: {} (page: {}, size: {}, query: {}, sort: {}, tags: {}, mode: {}, count: {})",
+                user.username(), page, size, query, sort, tags, mode, count);
+        Slice<NoteResponseDTO> notes = noteService.list(user.id(), query, tags, mode, pageable, relevance, count);
+        // Spring answers a matching If-None-Match with 304 before the body is written
+        String etag = ETags.forCollection(notes.getContent(),
+                notes.getNumber() + "/" + notes.getSize() + "/" + total(notes));
+        return ResponseEntity.ok().eTag(etag).body(notes);
+    }
+
+    // Title autocomplete for quick-open boxes
+    @GetMapping("/suggest")
+    public ResponseEntity<List<NoteSuggestion>> suggest(
+            @RequestParam(value = "prefix", defaultValue = "") String prefix,
+            @RequestParam(value = "limit", defaultValue = "10") int limit
+    ) {
+        AuthenticatedUser user = getCurrentUser();
+        logger.debug("Suggesting titles for user: {} (prefix: {}, limit: {})", user.username(), prefix, limit);
+        return ResponseEntity.ok(noteService.suggest(user.id(), prefix, limit));
+    }
+
+    // Tag facet counts for the current user
+    @GetMapping("/tags")
+    public ResponseEntity<Map<String, Long>> tagCounts() {
+        AuthenticatedUser user = getCurrentUser();
+        logger.info("Fetching tag counts for user: {}", user.username());
+        return ResponseEntity.ok(noteService.tagCounts(user.id()));
+    }
+
+    // Compact list view with only the requested fields, e.g. view=summary&fields=title,tags&excerpt=120
+    @GetMapping(params = {"view=summary", "!cursor"})
+    public ResponseEntity<NoteListResponse> listNoteSummaries(
             @RequestParam(value = "q", required = false) String query,
             @RequestParam(value = "page", defaultValue = "0") int page,
-            @RequestParam(value = "size", defaultValue = "10") int size
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "tags", required = false) List<String> tags,
+            @RequestParam(value = "mode", required = false) String mode,
+            @RequestParam(value = "fields", required = false) List<String> fields,
+            @RequestParam(value = "excerpt", required = false) Integer excerpt,
+            @RequestParam(value = "count", defaultValue = "true") boolean count
     ) {
-        String username = getCurrentUsername();
+        AuthenticatedUser user = getCurrentUser();
         Pageable pageable = PageRequest.of(page, size);
-        logger.info("Listing notes for user: {} (page: {}, size: {}, query: {})", username, page, size, query);
-        Page<NoteResponseDTO> notes = noteService.list(username, query, pageable);
-        return ResponseEntity.ok(notes);
+        boolean relevance = "relevance".equalsIgnoreCase(sort);
+        logger.info("Listing note summaries for user: {} (page: {}, size: {}, query: {}, fields: {}, excerpt: {})",
+                user.username(), page, size, query, fields, excerpt);
+        NoteListResponse notes = noteService.listSummaries(user.id(), query, tags, mode, pageable, relevance, count,
+                fields, excerpt);
+        // Fields and excerpt length are part of the tag: the same notes in another shape are a different representation
+        String etag = ETags.forCollection(notes.getItems(), NoteSummaryDTO::getId, NoteSummaryDTO::getVersion,
+                notes.getPage() + "/" + notes.getSize() + "/" + notes.getTotal() + "/" + notes.isHasNext()
+                        + "/" + fields + "/" + excerpt);
+        return ResponseEntity.ok().eTag(etag).body(notes);
+    }
+
+    // List notes with keyset pagination (opt-in: pass an empty cursor for the first slice)
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPageResponse<NoteResponseDTO>> listNotesByCursor(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "order", defaultValue = "updated") String order,
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            @RequestParam(value = "q", required = false) String query,
+            @RequestParam(value = "view", required = false) String view
+    ) {
+        AuthenticatedUser user = getCurrentUser();
+        if (query != null && !query.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Search results are only available with page-based listing");
+        }
+        if (view != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Views are only available with page-based listing");
+        }
+        logger.info("Listing notes by cursor for user: {} (order: {}, size: {})", user.username(), order, size);
+        CursorPageResponse<NoteResponseDTO> notes = noteService.listByCursor(user.id(), cursor, order, size);
+        String etag = ETags.forCollection(notes.getItems(), String.valueOf(notes.getNext()));
+        return ResponseEntity.ok().eTag(etag).body(notes);
+    }
+
+    // Total for a counted page, otherwise whether a next page exists
+    private static String total(Slice<?> notes) {
+        return notes instanceof Page<?> page ? String.valueOf(page.getTotalElements()) : "next=" + notes.hasNext();
+    }
+
+    private static ResponseEntity.BodyBuilder withValidators(ResponseEntity.BodyBuilder builder, NoteResponseDTO note) {
+        builder.eTag(ETags.forNote(note.getId(), note.getVersion()));
+        if (note.getUpdatedAt() != null) {
+            builder.lastModified(note.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant());
+        }
+        return builder;
+    }
+
+    // Delta sync: notes written and ids deleted since the cursor (omit since for a full sync)
+    @GetMapping("/changes")
+    public ResponseEntity<NoteChangesResponse> changes(
+            @RequestParam(value = "since", required = false) String since,
+            @RequestParam(value = "limit", defaultValue = "500") int limit
+    ) {
+        AuthenticatedUser user = getCurrentUser();
+        logger.info("Fetching changes for user: {} (limit: {})", user.username(), limit);
+        NoteChangesResponse changes = noteService.changesSince(user.id(), since, limit);
+        return ResponseEntity.ok(changes);
+    }
+
+    // Live feed of the user's note changes as Server-Sent Events; Last-Event-ID resumes after the last change seen
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        AuthenticatedUser user = getCurrentUser();
+        Long after = null;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                after = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException ex) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid Last-Event-ID: " + lastEventId);
+            }
+        }
+        logger.info("Opening note stream for user: {} (last event: {})", user.username(), after);
+        return noteStreams.open(user.id(), after);
+    }
+
+    // gzip is used when listed with a non-zero q, or when * is and gzip is not listed at all
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.length() > 2 && param.substring(0, 2).equalsIgnoreCase("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException ex) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = q;
+            } else if (coding.equals("*")) {
+                any = q;
+            }
+        }
+        if (gzip != null) {
+            return gzip > 0;
+        }
+        return any != null && any > 0;
     }
 
-    // Get the current authenticated user's username from JWT
-    private String getCurrentUsername() {
+    // Get the current authenticated user (id and username) from JWT
+    private AuthenticatedUser getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
+        if (authentication == null || !authentication.isAuthenticated()
+                || !(authentication.getPrincipal() instanceof AuthenticatedUser user)) {
             logger.error("Access denied - user not authenticated");
             throw new RuntimeException("User not authenticated");
         }
-        return authentication.getName();
+        return user;
     }
 }
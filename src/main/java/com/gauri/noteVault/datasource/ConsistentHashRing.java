@@ -0,0 +1,50 @@
+package com.gauri.noteVault.datasource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent-hash placement of users on shards. Each shard owns many points on the ring so load
+ * evens out; adding a shard takes over roughly 1/N of the key space from the others.
+ * Only new users are placed with it: once placed, a user's shard is whatever the directory says.
+ */
+public final class ConsistentHashRing {
+
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+
+    public ConsistentHashRing(Collection<String> shards, int pointsPerShard) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("The ring needs at least one shard");
+        }
+        for (String shard : shards) {
+            for (int i = 0; i < pointsPerShard; i++) {
+                ring.putIfAbsent(hash(shard + "#" + i), shard);
+            }
+        }
+    }
+
+    public String shardFor(long key) {
+        Map.Entry<Long, String> owner = ring.ceilingEntry(mix(key));
+        return (owner != null ? owner : ring.firstEntry()).getValue();
+    }
+
+    // FNV-1a, finished with the same mix as the keys so points spread over the whole ring
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    // SplitMix64 finaliser: consecutive user ids land far apart
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
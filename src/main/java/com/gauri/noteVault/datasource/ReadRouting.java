@@ -0,0 +1,34 @@
+package com.gauri.noteVault.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread override of replica routing.
+ * Reads whose answer must reflect every committed write, such as credential checks, run inside
+ * {@link #onPrimary} and go to the primary even when their transaction is read-only.
+ */
+public final class ReadRouting {
+
+    private static final ThreadLocal<Integer> primaryDepth = ThreadLocal.withInitial(() -> 0);
+
+    private ReadRouting() {
+    }
+
+    public static <T> T onPrimary(Supplier<T> action) {
+        primaryDepth.set(primaryDepth.get() + 1);
+        try {
+            return action.get();
+        } finally {
+            int depth = primaryDepth.get() - 1;
+            if (depth == 0) {
+                primaryDepth.remove();
+            } else {
+                primaryDepth.set(depth);
+            }
+        }
+    }
+
+    static boolean primaryRequired() {
+        return primaryDepth.get() > 0;
+    }
+}
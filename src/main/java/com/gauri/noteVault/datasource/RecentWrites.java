@@ -0,0 +1,41 @@
+package com.gauri.noteVault.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Users who wrote within the last few seconds, so their reads can stay on the primary until the
+ * replicas have caught up (read-your-writes). The window is per instance: it covers the common case
+ * of a client reading back right after writing, not a replica that lags longer than the window.
+ */
+@Component
+public class RecentWrites {
+
+    private final long windowNanos;
+    private final Map<Long, Long> lastWrite = new ConcurrentHashMap<>();
+
+    public RecentWrites(@Value("${notevault.datasource.sticky-window-ms:2000}") long windowMs) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+    }
+
+    public void record(Long userId) {
+        lastWrite.put(userId, System.nanoTime());
+    }
+
+    public boolean isRecent(Long userId) {
+        Long at = lastWrite.get(userId);
+        return at != null && System.nanoTime() - at < windowNanos;
+    }
+
+    // Entries past the window no longer change routing
+    @Scheduled(fixedDelayString = "${notevault.datasource.sticky-sweep-ms:60000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        lastWrite.values().removeIf(at -> now - at >= windowNanos);
+    }
+}
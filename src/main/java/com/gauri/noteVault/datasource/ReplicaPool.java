@@ -0,0 +1,126 @@
+package com.gauri.noteVault.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+
+/**
+ * Read replicas with their current load and health.
+ * Selection picks the healthy replica with the fewest connections handed out, starting the comparison
+ * at a rotating position so equally loaded replicas are used round-robin. A replica that fails to hand
+ * out a connection is skipped until its retry delay has passed; the next read after that tries it again.
+ */
+public class ReplicaPool implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaPool.class);
+
+    public static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile boolean down;
+        private volatile long retryAt;
+
+        public Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public DataSource dataSource() {
+            return dataSource;
+        }
+
+        public int inFlight() {
+            return inFlight.get();
+        }
+
+        boolean available(long now) {
+            return !down || now - retryAt >= 0;
+        }
+    }
+
+    private final List<Replica> replicas;
+    private final long retryNanos;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaPool(List<Replica> replicas, long retryMs) {
+        this.replicas = List.copyOf(replicas);
+        this.retryNanos = TimeUnit.MILLISECONDS.toNanos(retryMs);
+    }
+
+    public List<Replica> replicas() {
+        return replicas;
+    }
+
+    // Least-loaded available replica, or null when there is none
+    public Replica select() {
+        int n = replicas.size();
+        if (n == 0) {
+            return null;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), n);
+        long now = System.nanoTime();
+        Replica best = null;
+        for (int i = 0; i < n; i++) {
+            Replica candidate = replicas.get((start + i) % n);
+            if (candidate.available(now) && (best == null || candidate.inFlight() < best.inFlight())) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    // Connection from the replica, counted as in flight until it is closed
+    public Connection borrow(Replica replica) throws SQLException {
+        Connection target = replica.dataSource.getConnection();
+        if (replica.down) {
+            replica.down = false;
+            logger.info("Read replica {} is reachable again", replica.name);
+        }
+        replica.inFlight.incrementAndGet();
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && closed.compareAndSet(false, true)) {
+                        replica.inFlight.decrementAndGet();
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getTargetException();
+                    }
+                });
+    }
+
+    public void markDown(Replica replica, SQLException cause) {
+        replica.retryAt = System.nanoTime() + retryNanos;
+        if (!replica.down) {
+            replica.down = true;
+            logger.warn("Read replica {} unavailable, reads go elsewhere for {} ms: {}",
+                    replica.name, TimeUnit.NANOSECONDS.toMillis(retryNanos), cause.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
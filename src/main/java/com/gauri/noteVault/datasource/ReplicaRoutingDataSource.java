@@ -0,0 +1,83 @@
+package com.gauri.noteVault.datasource;
+
+import com.gauri.noteVault.security.AuthenticatedUser;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+
+/**
+ * Sends read-only transactions to a read replica and everything else to the primary.
+ * Reads stay on the primary while the current user is within their read-your-writes window,
+ * inside {@link ReadRouting#onPrimary}, and when no replica is available.
+ * The routing decision needs the transaction's read-only flag, which Spring sets after the
+ * transaction has begun, so this must sit behind a LazyConnectionDataSourceProxy that only
+ * fetches the real connection for the first statement.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final ReplicaPool replicas;
+    private final RecentWrites recentWrites;
+
+    public ReplicaRoutingDataSource(DataSource primary, ReplicaPool replicas, RecentWrites recentWrites) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.recentWrites = recentWrites;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicas.replicas().forEach(replica -> targets.put(replica.name(), replica.dataSource()));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        ReplicaPool.Replica replica = route();
+        return replica != null ? replica.name() : PRIMARY;
+    }
+
+    // Replica connections are tracked for load balancing, and a failing replica falls back to the primary
+    @Override
+    public Connection getConnection() throws SQLException {
+        ReplicaPool.Replica replica = route();
+        // Each replica is tried at most once per connection request
+        for (int attempts = replicas.replicas().size(); replica != null && attempts > 0; attempts--) {
+            try {
+                return replicas.borrow(replica);
+            } catch (SQLException ex) {
+                replicas.markDown(replica, ex);
+                replica = replicas.select();
+            }
+        }
+        return primary.getConnection();
+    }
+
+    private ReplicaPool.Replica route() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || ReadRouting.primaryRequired()) {
+            return null;
+        }
+        Long userId = currentUserId();
+        if (userId != null && recentWrites.isRecent(userId)) {
+            return null;
+        }
+        return replicas.select();
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user
+                ? user.id()
+                : null;
+    }
+}
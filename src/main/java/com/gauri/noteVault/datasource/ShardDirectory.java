@@ -0,0 +1,84 @@
+package com.gauri.noteVault.datasource;
+
+import com.gauri.noteVault.cache.BoundedCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Which shard holds each user's notes, read from the user_shards table on the directory shard.
+ * Users without a row are placed with the hash ring on first use and the placement is recorded,
+ * so later changes to the ring never move existing users; only ShardMigrator does that.
+ * Lookups are cached for a short time. A move is fenced on the old shard (see ChangeSequence),
+ * so a stale entry can only serve reads until it expires.
+ */
+public class ShardDirectory {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardDirectory.class);
+
+    // Talks to the directory database directly: lookups run while the routing datasource is choosing a shard
+    private final JdbcTemplate jdbcTemplate;
+    private final ConsistentHashRing ring;
+    private final BoundedCache<Long, String> cache;
+    private final Duration cacheTtl;
+
+    public ShardDirectory(JdbcTemplate jdbcTemplate, ConsistentHashRing ring, int cacheSize, Duration cacheTtl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ring = ring;
+        this.cache = new BoundedCache<>(cacheSize, cacheTtl);
+        this.cacheTtl = cacheTtl;
+    }
+
+    public String shardOf(Long userId) {
+        String shard = cache.get(userId);
+        if (shard != null) {
+            return shard;
+        }
+        long ticket = cache.ticket(userId);
+        shard = lookup(userId);
+        if (shard == null) {
+            shard = place(userId);
+        }
+        cache.putIfUnchanged(userId, shard, ticket);
+        return shard;
+    }
+
+    // Directory row only, bypassing the cache; null when the user has not been placed yet
+    public String lookup(Long userId) {
+        List<String> rows = jdbcTemplate.queryForList(
+                "SELECT shard FROM user_shards WHERE user_id = ?", String.class, userId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    public void moveTo(Long userId, String shard) {
+        if (jdbcTemplate.update("UPDATE user_shards SET shard = ? WHERE user_id = ?", shard, userId) == 0) {
+            jdbcTemplate.update("INSERT INTO user_shards (user_id, shard) VALUES (?, ?)", userId, shard);
+        }
+        cache.invalidate(userId);
+    }
+
+    public void evict(Long userId) {
+        cache.invalidate(userId);
+    }
+
+    // Longest time another instance may keep routing a moved user to the old shard
+    public Duration cacheTtl() {
+        return cacheTtl;
+    }
+
+    private String place(Long userId) {
+        String shard = ring.shardFor(userId);
+        try {
+            jdbcTemplate.update("INSERT INTO user_shards (user_id, shard) VALUES (?, ?)", userId, shard);
+            logger.debug("Placed user {} on {}", userId, shard);
+            return shard;
+        } catch (DuplicateKeyException ex) {
+            // Another instance placed the user first; its choice stands
+            return lookup(userId);
+        }
+    }
+}
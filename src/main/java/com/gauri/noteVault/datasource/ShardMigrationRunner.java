@@ -0,0 +1,42 @@
+package com.gauri.noteVault.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * One-off process that moves users between shards and exits, e.g.
+ * {@code java -jar NoteVault.jar --spring.main.web-application-type=none --notevault.sharding.migrate=42:shard-2,57:shard-1}.
+ * Serving instances keep running meanwhile; see {@link ShardMigrator} for how writes are fenced.
+ */
+public class ShardMigrationRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardMigrationRunner.class);
+
+    private final ShardMigrator migrator;
+    private final ConfigurableApplicationContext context;
+    private final String moves;
+
+    public ShardMigrationRunner(ShardMigrator migrator, ConfigurableApplicationContext context, String moves) {
+        this.migrator = migrator;
+        this.context = context;
+        this.moves = moves;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        for (String move : moves.split(",")) {
+            String[] parts = move.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected userId:shard, got: " + move);
+            }
+            ShardMigrator.Result result = migrator.migrate(Long.valueOf(parts[0].trim()), parts[1].trim());
+            logger.info("Migration finished: {}", result);
+        }
+        // Exit before the search and tag indexes start rebuilding; this process never serves requests
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+}
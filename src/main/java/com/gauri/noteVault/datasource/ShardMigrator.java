@@ -0,0 +1,281 @@
+package com.gauri.noteVault.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.sql.DataSource;
+
+/**
+ * Moves one user's notes to another shard while the user keeps working.
+ * <ol>
+ *   <li>Copy every note, its tags and the user's tombstones to the target shard.</li>
+ *   <li>Copy what changed since, using the change sequence, until little is left.</li>
+ *   <li>Take the user's counter row lock on the source (every note write needs it), copy the rest,
+ *       copy the counter, point the directory at the target and mark the source counter as moved.
+ *       Writes queued behind the lock then fail with a retryable error instead of landing on the old shard.</li>
+ *   <li>Wait out the directory cache so no instance still reads from the source, then delete the source rows.</li>
+ * </ol>
+ * Note ids, versions and change sequences are copied unchanged, so ETags, cursors and sync tokens stay valid.
+ * One migration per user at a time: concurrent moves of the same user from different processes are not detected.
+ */
+public class ShardMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardMigrator.class);
+
+    static final int COPY_BATCH = 500;
+
+    private static final String NOTE_COLUMNS =
+            "id, title, content_data, excerpt, user_id, created_at, updated_at, version, change_seq";
+
+    private static final RowMapper<Object[]> NOTE_ROW = (rs, rowNum) -> new Object[]{
+            rs.getLong("id"), rs.getString("title"), rs.getBytes("content_data"), rs.getString("excerpt"),
+            rs.getLong("user_id"), rs.getObject("created_at", LocalDateTime.class),
+            rs.getObject("updated_at", LocalDateTime.class), rs.getLong("version"), rs.getLong("change_seq")};
+
+    private static final RowMapper<Object[]> TOMBSTONE_ROW = (rs, rowNum) -> new Object[]{
+            rs.getLong("note_id"), rs.getLong("user_id"), rs.getLong("change_seq"),
+            rs.getObject("deleted_at", LocalDateTime.class)};
+
+    public record Result(Long userId, String from, String to, int rounds, long notesCopied, long tombstonesCopied,
+                         long millis) {
+    }
+
+    private final Map<String, DataSource> shards;
+    private final ShardDirectory directory;
+    private final int maxCatchUpRounds;
+    private final long catchUpThreshold;
+    private final Set<Long> moving = ConcurrentHashMap.newKeySet();
+
+    public ShardMigrator(Map<String, DataSource> shards, ShardDirectory directory,
+                         int maxCatchUpRounds, long catchUpThreshold) {
+        this.shards = Map.copyOf(shards);
+        this.directory = directory;
+        this.maxCatchUpRounds = maxCatchUpRounds;
+        this.catchUpThreshold = catchUpThreshold;
+    }
+
+    public Result migrate(Long userId, String target) {
+        long started = System.currentTimeMillis();
+        DataSource targetDataSource = shards.get(target);
+        if (targetDataSource == null) {
+            throw new IllegalArgumentException("Unknown shard: " + target);
+        }
+        String source = directory.lookup(userId);
+        if (source == null) {
+            source = directory.shardOf(userId);
+        }
+        if (source.equals(target)) {
+            return new Result(userId, source, target, 0, 0, 0, 0);
+        }
+        if (!moving.add(userId)) {
+            throw new IllegalStateException("User " + userId + " is already being moved");
+        }
+        try {
+            logger.info("Moving notes of user {} from {} to {}", userId, source, target);
+            Copy copy = new Copy(userId, shards.get(source), targetDataSource);
+            // Leftovers of an earlier, interrupted move would otherwise survive next to the copied rows
+            copy.purge(copy.target);
+            copy.ensureSourceCounter();
+
+            long copiedUpTo = -1;
+            int rounds = 0;
+            do {
+                long upTo = copy.sourceChangeSeq();
+                copy.copyChanges(copiedUpTo);
+                copiedUpTo = upTo;
+                rounds++;
+            } while (rounds < maxCatchUpRounds && copy.sourceChangeSeq() - copiedUpTo > catchUpThreshold);
+
+            switchOver(copy, source, target, copiedUpTo);
+            rounds++;
+
+            // Instances that looked the user up just before the switch keep reading the source until their entry expires
+            try {
+                Thread.sleep(directory.cacheTtl().toMillis());
+                copy.purge(copy.source);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                logger.warn("Interrupted before removing the moved notes of user {} from {}", userId, source);
+            }
+
+            Result result = new Result(userId, source, target, rounds, copy.notesCopied, copy.tombstonesCopied,
+                    System.currentTimeMillis() - started);
+            logger.info("Moved notes of user {} from {} to {}: {} notes and {} tombstones in {} rounds, {} ms",
+                    userId, source, target, result.notesCopied(), result.tombstonesCopied(), rounds, result.millis());
+            return result;
+        } finally {
+            moving.remove(userId);
+        }
+    }
+
+    private void switchOver(Copy copy, String source, String target, long copiedUpTo) {
+        TransactionTemplate sourceTransaction = new TransactionTemplate(new DataSourceTransactionManager(copy.sourceDataSource));
+        try {
+            sourceTransaction.executeWithoutResult(status -> {
+                copy.source.queryForObject("SELECT change_seq FROM user_note_counters WHERE user_id = ? FOR UPDATE",
+                        Long.class, copy.userId);
+                copy.copyChanges(copiedUpTo);
+                copy.copyCounter();
+                directory.moveTo(copy.userId, target);
+                copy.source.update("UPDATE user_note_counters SET moved_to = ? WHERE user_id = ?", target, copy.userId);
+            });
+        } catch (RuntimeException ex) {
+            // The source kept every write; make sure the directory still points at it
+            if (target.equals(directory.lookup(copy.userId))) {
+                directory.moveTo(copy.userId, source);
+            }
+            throw ex;
+        }
+    }
+
+    // Copy state of one move; source statements join the switch-over transaction while it is open
+    private static final class Copy {
+
+        private final Long userId;
+        private final DataSource sourceDataSource;
+        private final JdbcTemplate source;
+        private final NamedParameterJdbcTemplate sourceNamed;
+        private final JdbcTemplate target;
+        private final TransactionTemplate targetTransaction;
+        private long notesCopied;
+        private long tombstonesCopied;
+
+        private Copy(Long userId, DataSource sourceDataSource, DataSource targetDataSource) {
+            this.userId = userId;
+            this.sourceDataSource = sourceDataSource;
+            this.source = new JdbcTemplate(sourceDataSource);
+            this.sourceNamed = new NamedParameterJdbcTemplate(source);
+            this.target = new JdbcTemplate(targetDataSource);
+            this.targetTransaction = new TransactionTemplate(new DataSourceTransactionManager(targetDataSource));
+        }
+
+        private long sourceChangeSeq() {
+            Long seq = source.queryForObject(
+                    "SELECT change_seq FROM user_note_counters WHERE user_id = ?", Long.class, userId);
+            return seq != null ? seq : 0;
+        }
+
+        // The switch-over locks the counter row, so there has to be one
+        private void ensureSourceCounter() {
+            Long rows = source.queryForObject(
+                    "SELECT COUNT(*) FROM user_note_counters WHERE user_id = ?", Long.class, userId);
+            if (rows != null && rows > 0) {
+                return;
+            }
+            try {
+                source.update("""
+                        INSERT INTO user_note_counters (user_id, change_seq, note_count)
+                        SELECT ?, 0, COUNT(*) FROM notes WHERE user_id = ?
+                        """, userId, userId);
+            } catch (DuplicateKeyException ex) {
+                // A note write created it meanwhile
+            }
+        }
+
+        // Notes and tombstones written after afterSeq (all of them for -1), replacing older copies on the target
+        private void copyChanges(long afterSeq) {
+            long afterId = 0;
+            List<Object[]> notes;
+            do {
+                notes = source.query("""
+                        SELECT %s FROM notes
+                        WHERE user_id = ? AND change_seq > ? AND id > ?
+                        ORDER BY id
+                        LIMIT ?
+                        """.formatted(NOTE_COLUMNS), NOTE_ROW, userId, afterSeq, afterId, COPY_BATCH);
+                if (notes.isEmpty()) {
+                    break;
+                }
+                List<Long> ids = notes.stream().map(row -> (Long) row[0]).toList();
+                List<Object[]> tags = sourceNamed.query("SELECT note_id, tag FROM note_tags WHERE note_id IN (:ids)",
+                        Map.of("ids", ids), (rs, rowNum) -> new Object[]{rs.getLong("note_id"), rs.getString("tag")});
+                List<Object[]> rows = notes;
+                targetTransaction.executeWithoutResult(status -> {
+                    deleteNotes(target, ids);
+                    target.batchUpdate("INSERT INTO notes (%s) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)".formatted(NOTE_COLUMNS), rows);
+                    target.batchUpdate("INSERT INTO note_tags (note_id, tag) VALUES (?, ?)", tags);
+                });
+                notesCopied += notes.size();
+                afterId = ids.get(ids.size() - 1);
+            } while (notes.size() == COPY_BATCH);
+
+            afterId = 0;
+            List<Object[]> tombstones;
+            do {
+                tombstones = source.query("""
+                        SELECT note_id, user_id, change_seq, deleted_at FROM note_tombstones
+                        WHERE user_id = ? AND change_seq > ? AND note_id > ?
+                        ORDER BY note_id
+                        LIMIT ?
+                        """, TOMBSTONE_ROW, userId, afterSeq, afterId, COPY_BATCH);
+                if (tombstones.isEmpty()) {
+                    break;
+                }
+                List<Long> ids = tombstones.stream().map(row -> (Long) row[0]).toList();
+                List<Object[]> rows = tombstones;
+                targetTransaction.executeWithoutResult(status -> {
+                    // A copied note deleted on the source since then
+                    deleteNotes(target, ids);
+                    target.batchUpdate("DELETE FROM note_tombstones WHERE note_id = ?", idArgs(ids));
+                    target.batchUpdate("""
+                            INSERT INTO note_tombstones (note_id, user_id, change_seq, deleted_at) VALUES (?, ?, ?, ?)
+                            """, rows);
+                });
+                tombstonesCopied += tombstones.size();
+                afterId = ids.get(ids.size() - 1);
+            } while (tombstones.size() == COPY_BATCH);
+        }
+
+        // The target's counter continues where the source's stopped
+        private void copyCounter() {
+            Map<String, Object> counter = source.queryForMap(
+                    "SELECT change_seq, note_count FROM user_note_counters WHERE user_id = ?", userId);
+            Object changeSeq = counter.get("change_seq");
+            Object noteCount = counter.get("note_count");
+            if (target.update("UPDATE user_note_counters SET change_seq = ?, note_count = ?, moved_to = NULL WHERE user_id = ?",
+                    changeSeq, noteCount, userId) == 0) {
+                target.update("INSERT INTO user_note_counters (user_id, change_seq, note_count) VALUES (?, ?, ?)",
+                        userId, changeSeq, noteCount);
+            }
+        }
+
+        // Every note and tombstone of the user on one shard; the counter row stays as the moved marker
+        private void purge(JdbcTemplate shard) {
+            List<Long> ids;
+            do {
+                ids = shard.queryForList("""
+                        SELECT id FROM notes WHERE user_id = ?
+                        ORDER BY id
+                        LIMIT ?
+                        """, Long.class, userId, COPY_BATCH);
+                if (!ids.isEmpty()) {
+                    List<Long> batch = ids;
+                    new TransactionTemplate(new DataSourceTransactionManager(shard.getDataSource()))
+                            .executeWithoutResult(status -> deleteNotes(shard, batch));
+                }
+            } while (ids.size() == COPY_BATCH);
+            shard.update("DELETE FROM note_tombstones WHERE user_id = ?", userId);
+        }
+
+        private static void deleteNotes(JdbcTemplate shard, List<Long> ids) {
+            List<Object[]> args = idArgs(ids);
+            shard.batchUpdate("DELETE FROM note_tags WHERE note_id = ?", args);
+            shard.batchUpdate("DELETE FROM notes WHERE id = ?", args);
+        }
+
+        private static List<Object[]> idArgs(List<Long> ids) {
+            return ids.stream().map(id -> new Object[]{id}).toList();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.gauri.noteVault.datasource;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+
+/**
+ * One connection pool per shard, keyed by shard name in shard order.
+ */
+public class ShardPools implements AutoCloseable {
+
+    private final Map<String, DataSource> dataSources;
+
+    public ShardPools(Map<String, DataSource> dataSources) {
+        if (!dataSources.containsKey(Shards.DIRECTORY)) {
+            throw new IllegalArgumentException("The directory shard " + Shards.DIRECTORY + " has no pool");
+        }
+        this.dataSources = new LinkedHashMap<>(dataSources);
+    }
+
+    public Map<String, DataSource> dataSources() {
+        return dataSources;
+    }
+
+    public DataSource get(String shard) {
+        DataSource dataSource = dataSources.get(shard);
+        if (dataSource == null) {
+            throw new IllegalArgumentException("Unknown shard: " + shard);
+        }
+        return dataSource;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource dataSource : dataSources.values()) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.gauri.noteVault.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread choice of shard for work that does not run as the authenticated user:
+ * startup jobs and index rebuilds that walk every shard, and account setup on behalf of a new user.
+ * The innermost call wins; without one, requests go to the authenticated user's shard.
+ */
+public final class ShardRouting {
+
+    private record Target(String shard, Long userId) {
+    }
+
+    private static final ThreadLocal<Target> target = new ThreadLocal<>();
+
+    private ShardRouting() {
+    }
+
+    public static <T> T onShard(String shard, Supplier<T> action) {
+        return with(new Target(shard, null), action);
+    }
+
+    // Route to whichever shard holds the user's notes
+    public static <T> T forUser(Long userId, Supplier<T> action) {
+        return with(new Target(null, userId), action);
+    }
+
+    private static <T> T with(Target next, Supplier<T> action) {
+        Target previous = target.get();
+        target.set(next);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                target.remove();
+            } else {
+                target.set(previous);
+            }
+        }
+    }
+
+    static String currentShard() {
+        Target current = target.get();
+        return current != null ? current.shard() : null;
+    }
+
+    static Long currentUser() {
+        Target current = target.get();
+        return current != null ? current.userId() : null;
+    }
+}
@@ -0,0 +1,51 @@
+package com.gauri.noteVault.datasource;
+
+import com.gauri.noteVault.security.AuthenticatedUser;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+
+/**
+ * Sends each transaction to the shard of the user it works for: the shard picked with
+ * {@link ShardRouting}, else the authenticated user's shard from the directory. Anything else
+ * (registration, login, token checks) runs before authentication and reaches the directory shard,
+ * which holds the accounts. Like the replica router it must sit behind a LazyConnectionDataSourceProxy,
+ * so the shard is chosen at the first statement rather than when the transaction begins.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final ShardDirectory directory;
+
+    public ShardRoutingDataSource(Map<String, DataSource> shards, ShardDirectory directory) {
+        this.directory = directory;
+        setTargetDataSources(new HashMap<>(shards));
+        setDefaultTargetDataSource(shards.get(Shards.DIRECTORY));
+        // A key naming a shard that is not configured is a bug, not a reason to use the directory shard
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String shard = ShardRouting.currentShard();
+        if (shard != null) {
+            return shard;
+        }
+        Long userId = ShardRouting.currentUser();
+        if (userId == null) {
+            userId = currentUserId();
+        }
+        return userId != null ? directory.shardOf(userId) : Shards.DIRECTORY;
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user
+                ? user.id()
+                : null;
+    }
+}
@@ -0,0 +1,67 @@
+package com.gauri.noteVault.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Names of the note databases. shard-0 is spring.datasource and also holds the accounts and the
+ * user directory; every URL in notevault.sharding.shard-urls adds shard-1, shard-2 and so on.
+ * Without shard URLs there is just shard-0 and nothing is routed.
+ */
+@Component
+public class Shards {
+
+    public static final String DIRECTORY = "shard-0";
+
+    // Each shard hands out note ids from its own range, so ids stay unique when a user's notes move
+    public static final long NOTE_ID_RANGE = 1L << 40;
+
+    private final List<String> names;
+
+    public Shards(@Value("${notevault.sharding.shard-urls:}") List<String> shardUrls) {
+        List<String> names = new ArrayList<>();
+        names.add(DIRECTORY);
+        for (String url : shardUrls) {
+            if (!url.isBlank()) {
+                names.add("shard-" + names.size());
+            }
+        }
+        this.names = List.copyOf(names);
+    }
+
+    // Unsharded setup, for code built outside Spring
+    public static Shards single() {
+        return new Shards(List.of());
+    }
+
+    public List<String> names() {
+        return names;
+    }
+
+    public boolean isSharded() {
+        return names.size() > 1;
+    }
+
+    // First note id of the shard's range
+    public long noteIdBase(String shard) {
+        int index = names.indexOf(shard);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown shard: " + shard);
+        }
+        return index * NOTE_ID_RANGE;
+    }
+
+    // Run the action once per shard with statements routed to that shard
+    public void forEach(Consumer<String> action) {
+        for (String shard : names) {
+            ShardRouting.onShard(shard, () -> {
+                action.accept(shard);
+                return null;
+            });
+        }
+    }
+}
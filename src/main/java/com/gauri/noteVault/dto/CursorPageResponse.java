@@ -0,0 +1,17 @@
+package com.gauri.noteVault.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One slice of a keyset-paginated listing; pass "next" back as the cursor to continue
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+    private List<T> items;
+    private String next;
+    private boolean hasNext;
+}
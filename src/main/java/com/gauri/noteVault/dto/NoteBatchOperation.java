@@ -0,0 +1,30 @@
+package com.gauri.noteVault.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteBatchOperation {
+
+    public enum Type {
+        @JsonProperty("create") CREATE,
+        @JsonProperty("update") UPDATE,
+        @JsonProperty("delete") DELETE
+    }
+
+    @NotNull(message = "Operation type is mandatory")
+    private Type op;
+
+    // Required for update and delete
+    private Long id;
+
+    // Required for create and update
+    @Valid
+    private NoteRequestDTO note;
+}
@@ -0,0 +1,20 @@
+package com.gauri.noteVault.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteBatchRequest {
+
+    @NotEmpty(message = "At least one operation is required")
+    @Size(max = 1000, message = "At most 1000 operations per batch")
+    private List<@Valid NoteBatchOperation> operations;
+}
@@ -0,0 +1,20 @@
+package com.gauri.noteVault.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Outcome of one operation in a batch, in request order
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class NoteBatchResult {
+    private int index;
+    private NoteBatchOperation.Type op;
+    private Long id;
+    private int status;
+    private String error;
+    private NoteResponseDTO note;
+}
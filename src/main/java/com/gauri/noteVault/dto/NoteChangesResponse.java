@@ -0,0 +1,18 @@
+package com.gauri.noteVault.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Notes created or updated and ids deleted since a cursor; pass cursor back as since on the next call
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteChangesResponse {
+    private List<NoteResponseDTO> changed;
+    private List<Long> deleted;
+    private String cursor;
+    private boolean hasMore;
+}
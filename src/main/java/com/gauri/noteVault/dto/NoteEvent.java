@@ -0,0 +1,39 @@
+package com.gauri.noteVault.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// One committed change pushed on the note stream; content is left out, clients fetch the note when they need it
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class NoteEvent {
+
+    public static final String CREATED = "created";
+    public static final String UPDATED = "updated";
+    public static final String DELETED = "deleted";
+
+    private String type;
+    private Long id;
+    private Long version;
+    private String title;
+    private List<String> tags;
+    private LocalDateTime updatedAt;
+    // The user's change sequence number; also the SSE event id used to resume
+    private long changeSeq;
+
+    public static NoteEvent written(String type, long changeSeq, NoteResponseDTO note) {
+        return new NoteEvent(type, note.getId(), note.getVersion(), note.getTitle(), note.getTags(),
+                note.getUpdatedAt(), changeSeq);
+    }
+
+    public static NoteEvent deleted(Long id, long changeSeq) {
+        return new NoteEvent(DELETED, id, null, null, null, null, changeSeq);
+    }
+}
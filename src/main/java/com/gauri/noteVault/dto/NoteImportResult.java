@@ -0,0 +1,29 @@
+package com.gauri.noteVault.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Summary of an import; notes from chunks committed before an abort stay imported
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteImportResult {
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Error {
+        private long record;
+        private int line;
+        private String message;
+    }
+
+    private long imported;
+    private long failed;
+    private boolean aborted;
+    private List<Error> errors = new ArrayList<>();
+}
@@ -0,0 +1,22 @@
+package com.gauri.noteVault.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Compact page envelope for the summary list view, in place of Spring's Page JSON
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteListResponse {
+    private List<NoteSummaryDTO> items;
+    private int page;
+    private int size;
+    // Absent when the client asked for count=false
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long total;
+    private boolean hasNext;
+}
@@ -3,6 +3,7 @@ package com.gauri.noteVault.dto;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -13,8 +14,11 @@ import lombok.NoArgsConstructor;
 public class NoteResponseDTO {
     private Long id;
     private String title;
+    // Absent from list responses, which never load note content
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String content;
     private List<String> tags;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;
 }
@@ -0,0 +1,14 @@
+package com.gauri.noteVault.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One autocomplete entry: enough to open the note
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteSuggestion {
+    private Long id;
+    private String title;
+}
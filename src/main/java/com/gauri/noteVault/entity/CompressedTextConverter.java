@@ -0,0 +1,105 @@
+package com.gauri.noteVault.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Stores text as UTF-8, Deflate-compressed once it is large enough for compression to pay off.
+ * The first byte tells the formats apart: RAW is followed by the UTF-8 bytes, DEFLATE by the
+ * uncompressed length (4 bytes) and the raw Deflate stream. Text that does not shrink is kept raw.
+ */
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, byte[]> {
+
+    static final byte RAW = 0;
+    static final byte DEFLATE = 1;
+
+    // Below this many UTF-8 bytes the header and CPU cost outweigh the saving
+    static final int COMPRESSION_THRESHOLD = 512;
+
+    @Override
+    public byte[] convertToDatabaseColumn(String text) {
+        if (text == null) {
+            return null;
+        }
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length >= COMPRESSION_THRESHOLD) {
+            byte[] compressed = deflate(utf8);
+            if (compressed.length + 5 < utf8.length) {
+                return ByteBuffer.allocate(5 + compressed.length)
+                        .put(DEFLATE)
+                        .putInt(utf8.length)
+                        .put(compressed)
+                        .array();
+            }
+        }
+        byte[] stored = new byte[utf8.length + 1];
+        stored[0] = RAW;
+        System.arraycopy(utf8, 0, stored, 1, utf8.length);
+        return stored;
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] stored) {
+        if (stored == null) {
+            return null;
+        }
+        if (stored.length == 0) {
+            return "";
+        }
+        return switch (stored[0]) {
+            case RAW -> new String(stored, 1, stored.length - 1, StandardCharsets.UTF_8);
+            case DEFLATE -> new String(inflate(stored), StandardCharsets.UTF_8);
+            default -> throw new IllegalStateException("Unknown content encoding " + stored[0]);
+        };
+    }
+
+    // Fastest level: text still shrinks several times, and multi-MB notes stay cheap to write
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 3 + 64);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] stored) {
+        int length = ByteBuffer.wrap(stored, 1, 4).getInt();
+        byte[] output = new byte[length];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(stored, 5, stored.length - 5);
+            int written = 0;
+            while (written < length) {
+                int n = inflater.inflate(output, written, length - written);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                written += n;
+            }
+            if (written != length) {
+                throw new IllegalStateException("Truncated compressed content");
+            }
+            return output;
+        } catch (DataFormatException ex) {
+            throw new IllegalStateException("Corrupt compressed content", ex);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -3,26 +3,46 @@ package com.gauri.noteVault.entity;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.Length;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "notes")
+@Table(name = "notes", indexes = {
+        @Index(name = "idx_notes_user_updated", columnList = "user_id, updated_at, id"),
+        @Index(name = "idx_notes_user_change", columnList = "user_id, change_seq")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Note {
 
+    // Longest stored excerpt; list views can ask for up to this many characters
+    public static final int EXCERPT_LENGTH = 500;
+
+    // Pooled sequence ids let Hibernate batch inserts; IDENTITY would force one INSERT per persist
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "note_seq")
+    @SequenceGenerator(name = "note_seq", sequenceName = "note_seq", allocationSize = 50)
     private Long id;
 
     private String title;
+
+    // Compressed LOB; rows from before this column are moved over by DatabaseInitializer
+    @Lob
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "content_data", length = Length.LONG32)
     private String content;
 
+    // Leading characters of the content, stored uncompressed so list views can preview a note without reading the LOB
+    @Column(name = "excerpt", length = EXCERPT_LENGTH)
+    private String excerpt;
+
+    // No foreign key: with sharding the owner's account row lives on the directory shard, not next to the note
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "user_id")
+    @JoinColumn(name = "user_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     @JsonBackReference
     private User user;
 
@@ -34,14 +54,39 @@ public class Note {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    // Optimistic-locking version, also the basis of the note's ETag; existing rows start at 0
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    // Position in the owner's change feed, assigned from UserNoteCounter on every write
+    @ColumnDefault("0")
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq;
+
     @PrePersist
     protected void onCreate() {
+        if (changeSeq == null) {
+            changeSeq = 0L;
+        }
+        excerpt = excerptOf(content, EXCERPT_LENGTH);
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
     }
 
     @PreUpdate
     protected void onUpdate() {
+        excerpt = excerptOf(content, EXCERPT_LENGTH);
         updatedAt = LocalDateTime.now();
     }
+
+    // First length characters of the text, never ending in half a surrogate pair
+    public static String excerptOf(String text, int length) {
+        if (text == null || text.length() <= length) {
+            return text;
+        }
+        int end = Character.isHighSurrogate(text.charAt(length - 1)) ? length - 1 : length;
+        return text.substring(0, end);
+    }
 }
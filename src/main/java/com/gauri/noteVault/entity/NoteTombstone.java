@@ -0,0 +1,32 @@
+package com.gauri.noteVault.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Trace of a deleted note so delta sync can tell clients to drop it; compacted after a retention window
+@Entity
+@Table(name = "note_tombstones", indexes = {
+        @Index(name = "idx_tombstones_user_change", columnList = "user_id, change_seq"),
+        @Index(name = "idx_tombstones_deleted_at", columnList = "deleted_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NoteTombstone {
+
+    @Id
+    @Column(name = "note_id")
+    private Long noteId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+}
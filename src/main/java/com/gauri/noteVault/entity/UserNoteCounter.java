@@ -0,0 +1,36 @@
+package com.gauri.noteVault.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+
+// Per-user counters maintained alongside note writes; the row lock also serialises a user's writes
+@Entity
+@Table(name = "user_note_counters")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserNoteCounter {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    // Last change sequence handed out to one of the user's notes or tombstones
+    @ColumnDefault("0")
+    @Column(name = "change_seq", nullable = false)
+    private long changeSeq;
+
+    // Number of notes the user owns, kept in step by every note write; null until DatabaseInitializer has counted them
+    @Column(name = "note_count")
+    private Long noteCount;
+
+    // Shard the user's notes were moved to; set on the old shard's row so late writes there are refused
+    @Column(name = "moved_to", length = 64)
+    private String movedTo;
+
+    public UserNoteCounter(Long userId, long changeSeq, Long noteCount) {
+        this(userId, changeSeq, noteCount, null);
+    }
+}
@@ -0,0 +1,21 @@
+package com.gauri.noteVault.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Directory entry: the shard holding a user's notes. Lives on the directory shard and is read and
+// written over plain JDBC by ShardDirectory; mapped here so the schema is created with the others
+@Entity
+@Table(name = "user_shards")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserShard {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "shard", nullable = false, length = 64)
+    private String shard;
+}
@@ -0,0 +1,46 @@
+package com.gauri.noteVault.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+// Records how many SQL statements each request issued, tagged by method and URI template
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class StatementCountFilter extends OncePerRequestFilter {
+
+    // Built once; each request only supplies its tags
+    private final Meter.MeterProvider<DistributionSummary> statements;
+
+    public StatementCountFilter(MeterRegistry registry) {
+        this.statements = DistributionSummary.builder("notevault.db.statements")
+                .description("SQL statements issued per request")
+                .withRegistry(registry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        StatementCounter.reset();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            // Template, not raw path, so note ids do not explode the number of series
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            statements.withTags("method", request.getMethod(), "uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                    .record(StatementCounter.current());
+        }
+    }
+}
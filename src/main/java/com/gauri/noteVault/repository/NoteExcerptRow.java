@@ -0,0 +1,5 @@
+package com.gauri.noteVault.repository;
+
+// Stored content excerpt of a note, loaded for list views that ask for one
+public record NoteExcerptRow(Long id, String excerpt) {
+}
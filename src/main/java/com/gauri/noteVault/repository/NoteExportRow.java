@@ -0,0 +1,8 @@
+package com.gauri.noteVault.repository;
+
+import java.time.LocalDateTime;
+
+// One note/tag row of the export query; a note without tags yields a single row with a null tag
+public record NoteExportRow(Long id, String title, String content,
+                            LocalDateTime createdAt, LocalDateTime updatedAt, Long version, String tag) {
+}
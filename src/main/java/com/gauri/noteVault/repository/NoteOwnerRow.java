@@ -0,0 +1,5 @@
+package com.gauri.noteVault.repository;
+
+// A note id with its owner, used to walk all notes without loading their columns
+public record NoteOwnerRow(Long id, Long userId) {
+}
@@ -1,38 +1,188 @@
 package com.gauri.noteVault.repository;
 
 import com.gauri.noteVault.entity.Note;
+import com.gauri.noteVault.search.NoteSearchDocument;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface NoteRepository extends JpaRepository<Note, Long> {
 
-    // List notes belonging to a specific user
-    @Query("SELECT n FROM Note n WHERE n.user.username = :username")
-    Page<Note> findByUserUsername(@Param("username") String username, Pageable pageable);
+    // List notes belonging to a specific user, without their content; a Slice reads one extra row instead of counting
+    @Query("""
+            SELECT new com.gauri.noteVault.repository.NoteSummaryRow(n.id, n.title, n.createdAt, n.updatedAt, n.version)
+            FROM Note n
+            WHERE n.user.id = :userId
+            """)
+    Slice<NoteSummaryRow> findSummariesByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    // Fallback when the user's note counter has no count
+    @Query("SELECT COUNT(n) FROM Note n WHERE n.user.id = :userId")
+    long countByUserId(@Param("userId") Long userId);
+
+    // A user's notes in id order with decompressed text, for searching when the index is not available
+    @Query("""
+            SELECT new com.gauri.noteVault.search.NoteSearchDocument(n.id, n.user.id, n.title, n.content)
+            FROM Note n
+            WHERE n.user.id = :userId
+            ORDER BY n.id
+            """)
+    Stream<NoteSearchDocument> streamSearchDocumentsByUserId(@Param("userId") Long userId);
 
-    // Search notes by title or content (scoped to that user)
+    // Titles of all of a user's notes, to build the autocomplete index
+    @Query("""
+            SELECT new com.gauri.noteVault.repository.NoteSummaryRow(n.id, n.title, n.createdAt, n.updatedAt, n.version)
+            FROM Note n
+            WHERE n.user.id = :userId
+            """)
+    List<NoteSummaryRow> findAllSummariesByUserId(@Param("userId") Long userId);
+
+    // Notes written after (change sequence, id), oldest change first; the id orders notes that share
+    // a sequence (uses idx_notes_user_change, which carries the primary key)
     @Query("""
             SELECT n FROM Note n
-            WHERE n.user.username = :username AND
-            (LOWER(n.title) LIKE LOWER(CONCAT('%', :query, '%'))
-             OR LOWER(n.content) LIKE LOWER(CONCAT('%', :query, '%')))
+            WHERE n.user.id = :userId
+              AND (n.changeSeq > :afterSeq OR (n.changeSeq = :afterSeq AND n.id > :afterId))
+            ORDER BY n.changeSeq, n.id
             """)
-    Page<Note> searchByUserAndQuery(@Param("username") String username,
-                                    @Param("query") String query,
-                                    Pageable pageable);
+    List<Note> findChangedSince(@Param("userId") Long userId, @Param("afterSeq") long afterSeq,
+                                @Param("afterId") long afterId, Pageable limit);
+
+    // Current version of a note without loading its content or tags (ensuring user ownership)
+    @Query("SELECT n.version FROM Note n WHERE n.id = :id AND n.user.id = :userId")
+    Optional<Long> findVersionByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    // Find a specific note with its tags in one statement (ensuring user ownership)
+    @Query("SELECT n FROM Note n LEFT JOIN FETCH n.tags WHERE n.id = :id AND n.user.id = :userId")
+    Optional<Note> findByIdAndUserId(@Param("id") Long id,
+                                     @Param("userId") Long userId);
 
-    // Find a specific note by ID (ensuring user ownership)
-    @Query("SELECT n FROM Note n WHERE n.id = :id AND n.user.username = :username")
-    Optional<Note> findByIdAndUserUsername(@Param("id") Long id,
-                                           @Param("username") String username);
+    // Load several owned notes with their tags in one statement (used by batch operations)
+    @Query("SELECT DISTINCT n FROM Note n LEFT JOIN FETCH n.tags WHERE n.id IN :ids AND n.user.id = :userId")
+    List<Note> findAllWithTagsByIdInAndUserId(@Param("ids") Collection<Long> ids,
+                                              @Param("userId") Long userId);
 
     // Optional: fetch all notes as a list (not paged)
-    @Query("SELECT n FROM Note n WHERE n.user.username = :username")
-    List<Note> findAllByUserUsername(@Param("username") String username);
+    @Query("SELECT n FROM Note n WHERE n.user.id = :userId")
+    List<Note> findAllByUserId(@Param("userId") Long userId);
+
+    // Keyset listing, most recently updated first: first slice
+    @Query("""
+            SELECT new com.gauri.noteVault.repository.NoteSummaryRow(n.id, n.title, n.createdAt, n.updatedAt, n.version)
+            FROM Note n
+            WHERE n.user.id = :userId
+            ORDER BY n.updatedAt DESC, n.id DESC
+            """)
+    List<NoteSummaryRow> findFirstByUpdated(@Param("userId") Long userId, Pageable limit);
+
+    // Keyset listing, most recently updated first: rows after (updatedAt, id)
+    @Query("""
+            SELECT new com.gauri.noteVault.repository.NoteSummaryRow(n.id, n.title, n.createdAt, n.updatedAt, n.version)
+            FROM Note n
+            WHERE n.user.id = :userId AND
+            (n.updatedAt < :updatedAt OR (n.updatedAt = :updatedAt AND n.id < :id))
+            ORDER BY n.updatedAt DESC, n.id DESC
+            """)
+    List<NoteSummaryRow> findNextByUpdated(@Param("userId") Long userId,
+                                           @Param("updatedAt") LocalDateTime updatedAt,
+                                           @Param("id") Long id,
+                                           Pageable limit);
+
+    // Keyset listing in id order: rows after the given id
+    @Query("""
+            SELECT new com.gauri.noteVault.repository.NoteSummaryRow(n.id, n.title, n.createdAt, n.updatedAt, n.version)
+            FROM Note n
+            WHERE n.user.id = :userId AND n.id > :afterId
+            ORDER BY n.id
+            """)
+    List<NoteSummaryRow> findNextById(@Param("userId") Long userId,
+                                      @Param("afterId") Long afterId,
+                                      Pageable limit);
+
+    // Load the notes behind a page of search hits (ensuring user ownership)
+    @Query("""
+            SELECT new com.gauri.noteVault.repository.NoteSummaryRow(n.id, n.title, n.createdAt, n.updatedAt, n.version)
+            FROM Note n
+            WHERE n.id IN :ids AND n.user.id = :userId
+            """)
+    List<NoteSummaryRow> findSummariesByIdInAndUserId(@Param("ids") Collection<Long> ids,
+                                                      @Param("userId") Long userId);
+
+    // Tags of a batch of notes in one statement, instead of one lazy load per note
+    @Query("SELECT new com.gauri.noteVault.repository.NoteTag(n.id, t) FROM Note n JOIN n.tags t WHERE n.id IN :ids")
+    List<NoteTag> findTagsByNoteIds(@Param("ids") Collection<Long> ids);
+
+    // Notes of a user carrying any of the tags (tag index fallback)
+    @Query("""
+            SELECT DISTINCT n.id FROM Note n JOIN n.tags t
+            WHERE n.user.id = :userId AND t IN :tags
+            ORDER BY n.id
+            """)
+    List<Long> findIdsWithAnyTag(@Param("userId") Long userId, @Param("tags") Collection<String> tags);
+
+    // Notes of a user carrying all of the tags (tag index fallback)
+    @Query("""
+            SELECT n.id FROM Note n JOIN n.tags t
+            WHERE n.user.id = :userId AND t IN :tags
+            GROUP BY n.id
+            HAVING COUNT(DISTINCT t) = :tagCount
+            ORDER BY n.id
+            """)
+    List<Long> findIdsWithAllTags(@Param("userId") Long userId,
+                                  @Param("tags") Collection<String> tags,
+                                  @Param("tagCount") long tagCount);
+
+    // Number of notes per tag for one user (tag index fallback)
+    @Query("""
+            SELECT new com.gauri.noteVault.repository.TagCount(t, COUNT(DISTINCT n.id))
+            FROM Note n JOIN n.tags t
+            WHERE n.user.id = :userId
+            GROUP BY t
+            """)
+    List<TagCount> countTagsByUserId(@Param("userId") Long userId);
+
+    // Walk note ids and owners in id order to (re)build the tag index
+    @Query("""
+            SELECT new com.gauri.noteVault.repository.NoteOwnerRow(n.id, n.user.id)
+            FROM Note n
+            WHERE n.id > :afterId
+            ORDER BY n.id
+            """)
+    List<NoteOwnerRow> findNoteOwners(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Stored excerpts of a batch of notes, for list views that show a preview
+    @Query("SELECT new com.gauri.noteVault.repository.NoteExcerptRow(n.id, n.excerpt) FROM Note n WHERE n.id IN :ids")
+    List<NoteExcerptRow> findExcerptsByNoteIds(@Param("ids") Collection<Long> ids);
+
+    // Remove a note's tags, only if the note belongs to the user
+    @Modifying
+    @Query(value = """
+            DELETE FROM note_tags
+            WHERE note_id IN (SELECT n.id FROM notes n WHERE n.id = :id AND n.user_id = :userId)
+            """, nativeQuery = true)
+    int deleteTagsByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    // Remove a note, only if it belongs to the user; returns the number of deleted rows
+    @Modifying
+    @Query("DELETE FROM Note n WHERE n.id = :id AND n.user.id = :userId")
+    int deleteByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    // Walk every note in id order to (re)build the search index
+    @Query("""
+            SELECT new com.gauri.noteVault.search.NoteSearchDocument(n.id, n.user.id, n.title, n.content)
+            FROM Note n
+            WHERE n.id > :afterId
+            ORDER BY n.id
+            """)
+    List<NoteSearchDocument> findSearchDocuments(@Param("afterId") Long afterId, Pageable pageable);
 }
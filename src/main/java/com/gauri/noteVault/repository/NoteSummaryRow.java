@@ -0,0 +1,7 @@
+package com.gauri.noteVault.repository;
+
+import java.time.LocalDateTime;
+
+// Columns a listing needs; selecting these instead of the entity keeps the content LOB out of list queries
+public record NoteSummaryRow(Long id, String title, LocalDateTime createdAt, LocalDateTime updatedAt, Long version) {
+}
@@ -0,0 +1,5 @@
+package com.gauri.noteVault.repository;
+
+// One row of note_tags, used to load the tags of a whole page in a single query
+public record NoteTag(Long noteId, String tag) {
+}
@@ -0,0 +1,30 @@
+package com.gauri.noteVault.repository;
+
+import com.gauri.noteVault.entity.NoteTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface NoteTombstoneRepository extends JpaRepository<NoteTombstone, Long> {
+
+    // Deletions after a change sequence, oldest first (uses idx_tombstones_user_change)
+    @Query("""
+            SELECT t FROM NoteTombstone t
+            WHERE t.userId = :userId AND t.changeSeq > :afterSeq
+            ORDER BY t.changeSeq
+            """)
+    List<NoteTombstone> findChangedSince(@Param("userId") Long userId,
+                                         @Param("afterSeq") long afterSeq,
+                                         Pageable limit);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM NoteTombstone t WHERE t.deletedAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
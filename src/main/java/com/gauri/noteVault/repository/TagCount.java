@@ -0,0 +1,5 @@
+package com.gauri.noteVault.repository;
+
+// Number of a user's notes carrying a tag
+public record TagCount(String tag, Long count) {
+}
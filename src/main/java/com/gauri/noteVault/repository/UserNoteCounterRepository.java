@@ -0,0 +1,34 @@
+package com.gauri.noteVault.repository;
+
+import com.gauri.noteVault.entity.UserNoteCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface UserNoteCounterRepository extends JpaRepository<UserNoteCounter, Long> {
+
+    // Atomic increment of the change sequence and adjustment of the note count; the row stays locked
+    // until the surrounding transaction ends. An unknown (null) note count stays unknown.
+    // Rows of users moved to another shard are not updated.
+    @Modifying
+    @Query("""
+            UPDATE UserNoteCounter c
+            SET c.changeSeq = c.changeSeq + :count, c.noteCount = c.noteCount + :noteDelta
+            WHERE c.userId = :userId AND c.movedTo IS NULL
+            """)
+    int incrementChangeSeq(@Param("userId") Long userId, @Param("count") long count, @Param("noteDelta") long noteDelta);
+
+    @Query("SELECT c.changeSeq FROM UserNoteCounter c WHERE c.userId = :userId")
+    Long findChangeSeq(@Param("userId") Long userId);
+
+    // Empty when the user has no counter row or its note count is not known yet
+    @Query("SELECT c.noteCount FROM UserNoteCounter c WHERE c.userId = :userId")
+    Optional<Long> findNoteCount(@Param("userId") Long userId);
+
+    // Present when the user's notes have moved from this shard to another one
+    @Query("SELECT c.movedTo FROM UserNoteCounter c WHERE c.userId = :userId AND c.movedTo IS NOT NULL")
+    Optional<String> findMovedTo(@Param("userId") Long userId);
+}
@@ -1,15 +1,26 @@
 package com.gauri.noteVault.repository;
 
 import com.gauri.noteVault.entity.User;
+import com.gauri.noteVault.security.AuthenticatedUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
-}
-
-
-
 
+    // Id and username only, for building the request principal
+    @Query("SELECT new com.gauri.noteVault.security.AuthenticatedUser(u.id, u.username) FROM User u WHERE u.username = :username")
+    Optional<AuthenticatedUser> findPrincipalByUsername(@Param("username") String username);
 
+    // Replace only the password hash, e.g. when rehashing at a higher strength
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
+}
@@ -0,0 +1,366 @@
+package com.gauri.noteVault.search;
+
+import com.gauri.noteVault.datasource.ShardRouting;
+import com.gauri.noteVault.datasource.Shards;
+import com.gauri.noteVault.repository.NoteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-user inverted index kept in memory.
+ * Title and content are split into case-folded terms; every term points to the notes containing it.
+ * A trigram index over each user's term dictionary lets a query token also match inside longer terms,
+ * so "vault" still finds "notevault" the way the substring scan does.
+ * A note matches when every query token matches at least one of its terms.
+ */
+@Component
+@ConditionalOnProperty(name = "notes.search.engine", havingValue = "memory", matchIfMissing = true)
+public class InMemoryNoteSearchEngine implements NoteSearchEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryNoteSearchEngine.class);
+
+    // A term found in the title counts as much as three occurrences in the content
+    private static final int TITLE_WEIGHT = 3;
+    // Substring hits rank below whole-term hits
+    private static final double SUBSTRING_BOOST = 0.5;
+
+    private final NoteRepository noteRepository;
+    private final Shards shards;
+    private final int rebuildBatchSize;
+
+    private final Map<Long, UserIndex> indexes = new ConcurrentHashMap<>();
+    // Notes written by live traffic while a rebuild is running; the rebuild must not overwrite them
+    private final Set<Long> touchedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuilding;
+    private volatile boolean ready;
+
+    public InMemoryNoteSearchEngine(NoteRepository noteRepository, Shards shards,
+                                    @Value("${notes.search.rebuild-batch-size:1000}") int rebuildBatchSize) {
+        this.noteRepository = noteRepository;
+        this.shards = shards;
+        this.rebuildBatchSize = rebuildBatchSize;
+    }
+
+    // Build the index once the application is up; search scans notes until this completes
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void index(Long userId, Long noteId, String title, String content) {
+        UserIndex index = indexes.computeIfAbsent(userId, u -> new UserIndex());
+        index.lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                touchedDuringRebuild.add(noteId);
+            }
+            index.put(noteId, title, content);
+        } finally {
+            index.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long userId, Long noteId) {
+        UserIndex index = indexes.computeIfAbsent(userId, u -> new UserIndex());
+        index.lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                touchedDuringRebuild.add(noteId);
+            }
+            index.remove(noteId);
+        } finally {
+            index.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Page<Long> search(Long userId, String query, Pageable pageable, boolean relevance) {
+        UserIndex index = indexes.get(userId);
+        List<Long> ids = List.of();
+        if (index != null) {
+            index.lock.readLock().lock();
+            try {
+                ids = index.search(new ArrayList<>(new LinkedHashSet<>(tokenize(query))), relevance);
+            } finally {
+                index.lock.readLock().unlock();
+            }
+        }
+
+        int from = (int) Math.min(pageable.getOffset(), ids.size());
+        int to = Math.min(from + pageable.getPageSize(), ids.size());
+        return new PageImpl<>(ids.subList(from, to), pageable, ids.size());
+    }
+
+    @Override
+    public synchronized void rebuild() {
+        long started = System.currentTimeMillis();
+        ready = false;
+        indexes.clear();
+        rebuilding = true;
+        try {
+            int indexed = 0;
+            for (String shard : shards.names()) {
+                indexed += ShardRouting.onShard(shard, this::indexShard);
+            }
+
+            ready = true;
+            logger.info("Search index rebuilt: {} notes for {} users in {} ms",
+                    indexed, indexes.size(), System.currentTimeMillis() - started);
+        } catch (RuntimeException ex) {
+            logger.error("Search index rebuild failed, search stays on the note scan: {}", ex.getMessage(), ex);
+        } finally {
+            rebuilding = false;
+            touchedDuringRebuild.clear();
+        }
+    }
+
+    // Index the notes of the shard the calling thread is routed to; returns how many were read
+    private int indexShard() {
+        long afterId = 0;
+        int indexed = 0;
+        List<NoteSearchDocument> batch;
+        do {
+            batch = noteRepository.findSearchDocuments(afterId, PageRequest.of(0, rebuildBatchSize));
+            for (NoteSearchDocument doc : batch) {
+                UserIndex index = indexes.computeIfAbsent(doc.userId(), u -> new UserIndex());
+                index.lock.writeLock().lock();
+                try {
+                    if (!touchedDuringRebuild.contains(doc.id())) {
+                        index.put(doc.id(), doc.title(), doc.content());
+                    }
+                } finally {
+                    index.lock.writeLock().unlock();
+                }
+                afterId = doc.id();
+            }
+            indexed += batch.size();
+        } while (batch.size() == rebuildBatchSize);
+        return indexed;
+    }
+
+    // Split text into lower-cased runs of letters and digits
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String folded = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i < folded.length(); i++) {
+            if (Character.isLetterOrDigit(folded.charAt(i))) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            tokens.add(folded.substring(start));
+        }
+        return tokens;
+    }
+
+    private static List<String> trigrams(String term) {
+        List<String> grams = new ArrayList<>(Math.max(0, term.length() - 2));
+        for (int i = 0; i + 3 <= term.length(); i++) {
+            grams.add(term.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    // Index of a single user's notes; callers hold the lock
+    private static final class UserIndex {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<String, PostingList> postings = new HashMap<>();
+        private final Map<String, Set<String>> trigramTerms = new HashMap<>();
+        private final Map<Long, PostingList[]> docTerms = new HashMap<>();
+
+        void put(Long noteId, String title, String content) {
+            remove(noteId);
+
+            Map<String, Integer> weights = new HashMap<>();
+            for (String term : tokenize(title)) {
+                weights.merge(term, TITLE_WEIGHT, Integer::sum);
+            }
+            for (String term : tokenize(content)) {
+                weights.merge(term, 1, Integer::sum);
+            }
+
+            PostingList[] terms = new PostingList[weights.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+                PostingList list = postings.get(entry.getKey());
+                if (list == null) {
+                    list = new PostingList(entry.getKey());
+                    postings.put(list.term, list);
+                    for (String gram : trigrams(list.term)) {
+                        trigramTerms.computeIfAbsent(gram, g -> new HashSet<>()).add(list.term);
+                    }
+                }
+                list.add(noteId, entry.getValue());
+                terms[i++] = list;
+            }
+            docTerms.put(noteId, terms);
+        }
+
+        void remove(Long noteId) {
+            PostingList[] terms = docTerms.remove(noteId);
+            if (terms == null) {
+                return;
+            }
+            for (PostingList list : terms) {
+                list.remove(noteId);
+                if (list.size == 0) {
+                    postings.remove(list.term);
+                    for (String gram : trigrams(list.term)) {
+                        Set<String> gramTerms = trigramTerms.get(gram);
+                        if (gramTerms != null && gramTerms.remove(list.term) && gramTerms.isEmpty()) {
+                            trigramTerms.remove(gram);
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Long> search(List<String> tokens, boolean relevance) {
+            if (tokens.isEmpty()) {
+                return List.of();
+            }
+
+            Map<Long, Double> scores = null;
+            for (String token : tokens) {
+                Map<Long, Double> hits = new HashMap<>();
+                for (PostingList list : matchingTerms(token)) {
+                    double idf = Math.log(1.0 + (double) docTerms.size() / list.size);
+                    double boost = list.term.equals(token) ? 1.0 : SUBSTRING_BOOST;
+                    for (int i = 0; i < list.size; i++) {
+                        hits.merge(list.ids[i], list.weights[i] * idf * boost, Double::sum);
+                    }
+                }
+
+                if (scores == null) {
+                    scores = hits;
+                } else {
+                    scores.keySet().retainAll(hits.keySet());
+                    scores.replaceAll((id, score) -> score + hits.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            List<Long> ids = new ArrayList<>(scores.keySet());
+            if (relevance) {
+                Map<Long, Double> finalScores = scores;
+                ids.sort(Comparator.<Long>comparingDouble(finalScores::get).reversed()
+                        .thenComparing(Comparator.naturalOrder()));
+            } else {
+                ids.sort(Comparator.naturalOrder());
+            }
+            return ids;
+        }
+
+        // Exact term plus every dictionary term that contains the token
+        private List<PostingList> matchingTerms(String token) {
+            List<PostingList> matches = new ArrayList<>();
+            if (token.length() < 3) {
+                for (PostingList list : postings.values()) {
+                    if (list.term.contains(token)) {
+                        matches.add(list);
+                    }
+                }
+                return matches;
+            }
+
+            Set<String> candidates = null;
+            for (String gram : trigrams(token)) {
+                Set<String> gramTerms = trigramTerms.get(gram);
+                if (gramTerms == null) {
+                    return matches;
+                }
+                if (candidates == null || gramTerms.size() < candidates.size()) {
+                    candidates = gramTerms;
+                }
+            }
+            for (String term : candidates) {
+                if (term.contains(token)) {
+                    matches.add(postings.get(term));
+                }
+            }
+            return matches;
+        }
+    }
+
+    // Note ids sorted ascending with a per-note term weight
+    private static final class PostingList {
+
+        private final String term;
+        private long[] ids = new long[2];
+        private int[] weights = new int[2];
+        private int size;
+
+        PostingList(String term) {
+            this.term = term;
+        }
+
+        void add(long id, int weight) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                weights[pos] = weight;
+                return;
+            }
+            pos = -pos - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            System.arraycopy(weights, pos, weights, pos + 1, size - pos);
+            ids[pos] = id;
+            weights[pos] = weight;
+            size++;
+        }
+
+        void remove(long id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) {
+                return;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            System.arraycopy(weights, pos + 1, weights, pos, size - pos - 1);
+            size--;
+        }
+    }
+}
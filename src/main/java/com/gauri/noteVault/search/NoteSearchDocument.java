@@ -0,0 +1,5 @@
+package com.gauri.noteVault.search;
+
+// Minimal view of a note used when (re)building the search index
+public record NoteSearchDocument(Long id, Long userId, String title, String content) {
+}
@@ -0,0 +1,27 @@
+package com.gauri.noteVault.search;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Full-text search over a user's notes.
+ * The service falls back to scanning the user's notes whenever no engine is configured
+ * or the engine reports that it is not ready yet.
+ */
+public interface NoteSearchEngine {
+
+    // True once the index has been built from the notes table
+    boolean isReady();
+
+    // Add or replace a note in the owner's index
+    void index(Long userId, Long noteId, String title, String content);
+
+    // Drop a note from the owner's index
+    void remove(Long userId, Long noteId);
+
+    // Return the ids of matching notes, ordered by id or by relevance
+    Page<Long> search(Long userId, String query, Pageable pageable, boolean relevance);
+
+    // Rebuild the whole index from the notes table
+    void rebuild();
+}
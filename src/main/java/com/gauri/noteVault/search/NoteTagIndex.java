@@ -0,0 +1,437 @@
+package com.gauri.noteVault.search;
+
+import com.gauri.noteVault.datasource.ShardRouting;
+import com.gauri.noteVault.datasource.Shards;
+import com.gauri.noteVault.repository.NoteOwnerRow;
+import com.gauri.noteVault.repository.NoteRepository;
+import com.gauri.noteVault.repository.NoteTag;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Per-user tag index kept in memory.
+ * Each of a user's tagged notes gets a small integer ordinal; every tag maps to a compressed bitmap
+ * of the ordinals carrying it, so facet counts are bitmap cardinalities and multi-tag filters are
+ * bitmap AND/OR. Ordinals are handed out in note id order, so walking a bitmap yields ids in order.
+ * A note that arrives with a lower id than the last one (concurrent commits, another instance's id
+ * block, a write during a rebuild) breaks that order; pages then sort their matches until the next
+ * rebuild, compaction or reorder sweep renumbers the user's notes in id order again.
+ * Notes without tags are not indexed.
+ */
+@Component
+public class NoteTagIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteTagIndex.class);
+
+    // Renumber a user's ordinals once more than this many are dead and they outnumber the live ones
+    private static final int COMPACT_MIN_DEAD = 1024;
+
+    private final NoteRepository noteRepository;
+    private final Shards shards;
+    private final int rebuildBatchSize;
+
+    private final Map<Long, UserTags> indexes = new ConcurrentHashMap<>();
+    // Notes written by live traffic while a rebuild is running; the rebuild must not overwrite them
+    private final Set<Long> touchedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuilding;
+    private volatile boolean ready;
+
+    public NoteTagIndex(NoteRepository noteRepository, Shards shards,
+                        @Value("${notes.tags.rebuild-batch-size:1000}") int rebuildBatchSize) {
+        this.noteRepository = noteRepository;
+        this.shards = shards;
+        this.rebuildBatchSize = rebuildBatchSize;
+    }
+
+    // Build the index once the application is up; tag queries use SQL until this completes
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    // True once the index has been built from the note_tags table
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Add a note or replace its tags
+    public void put(Long userId, Long noteId, Collection<String> tags) {
+        UserTags index = indexes.computeIfAbsent(userId, u -> new UserTags());
+        index.lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                touchedDuringRebuild.add(noteId);
+            }
+            index.put(noteId, tags);
+        } finally {
+            index.lock.writeLock().unlock();
+        }
+    }
+
+    // Drop a note from the owner's index
+    public void remove(Long userId, Long noteId) {
+        UserTags index = indexes.computeIfAbsent(userId, u -> new UserTags());
+        index.lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                touchedDuringRebuild.add(noteId);
+            }
+            index.remove(noteId);
+        } finally {
+            index.lock.writeLock().unlock();
+        }
+    }
+
+    // Ids of the notes carrying all (or any) of the tags, in id order
+    public Page<Long> match(Long userId, Collection<String> tags, boolean matchAll, Pageable pageable) {
+        UserTags index = indexes.get(userId);
+        if (index == null) {
+            return new PageImpl<>(List.of(), pageable, 0);
+        }
+        index.lock.readLock().lock();
+        try {
+            RoaringBitmap matches = index.match(tags, matchAll);
+            int total = matches.getCardinality();
+            int from = (int) Math.min(pageable.getOffset(), total);
+            int to = Math.min(from + pageable.getPageSize(), total);
+            return new PageImpl<>(index.ids(matches, from, to), pageable, total);
+        } finally {
+            index.lock.readLock().unlock();
+        }
+    }
+
+    // Keep only the ids carrying all (or any) of the tags, preserving their order
+    public List<Long> retainMatching(Long userId, List<Long> noteIds, Collection<String> tags, boolean matchAll) {
+        UserTags index = indexes.get(userId);
+        if (index == null) {
+            return List.of();
+        }
+        index.lock.readLock().lock();
+        try {
+            RoaringBitmap matches = index.match(tags, matchAll);
+            List<Long> kept = new ArrayList<>();
+            for (Long noteId : noteIds) {
+                Integer ordinal = index.ordinals.get(noteId);
+                if (ordinal != null && matches.contains(ordinal)) {
+                    kept.add(noteId);
+                }
+            }
+            return kept;
+        } finally {
+            index.lock.readLock().unlock();
+        }
+    }
+
+    // Number of notes per tag, most used first
+    public Map<String, Long> counts(Long userId) {
+        UserTags index = indexes.get(userId);
+        if (index == null) {
+            return Map.of();
+        }
+        index.lock.readLock().lock();
+        try {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            index.byTag.entrySet().stream()
+                    .sorted(Comparator.<Map.Entry<String, RoaringBitmap>>comparingInt(e -> e.getValue().getCardinality())
+                            .reversed()
+                            .thenComparing(Map.Entry::getKey))
+                    .forEach(e -> counts.put(e.getKey(), (long) e.getValue().getCardinality()));
+            return counts;
+        } finally {
+            index.lock.readLock().unlock();
+        }
+    }
+
+    // Rebuild the whole index from the note_tags table
+    public synchronized void rebuild() {
+        long started = System.currentTimeMillis();
+        ready = false;
+        indexes.clear();
+        rebuilding = true;
+        try {
+            int indexed = 0;
+            for (String shard : shards.names()) {
+                indexed += ShardRouting.onShard(shard, this::indexShard);
+            }
+
+            for (UserTags index : indexes.values()) {
+                index.lock.writeLock().lock();
+                try {
+                    // Live writes that landed during the rebuild may have arrived out of id order
+                    if (!index.idOrdered) {
+                        index.renumber();
+                    }
+                    index.byTag.values().forEach(RoaringBitmap::runOptimize);
+                } finally {
+                    index.lock.writeLock().unlock();
+                }
+            }
+            ready = true;
+            logger.info("Tag index rebuilt: {} tagged notes for {} users in {} ms",
+                    indexed, indexes.size(), System.currentTimeMillis() - started);
+        } catch (RuntimeException ex) {
+            logger.error("Tag index rebuild failed, tag queries stay on SQL: {}", ex.getMessage(), ex);
+        } finally {
+            rebuilding = false;
+            touchedDuringRebuild.clear();
+        }
+    }
+
+    // Put users whose notes arrived out of id order back in order, so their pages stop sorting
+    @Scheduled(fixedDelayString = "${notes.tags.reorder-interval-ms:60000}")
+    public void reorderDisordered() {
+        int reordered = 0;
+        for (UserTags index : indexes.values()) {
+            index.lock.writeLock().lock();
+            try {
+                if (!index.idOrdered) {
+                    index.renumber();
+                    reordered++;
+                }
+            } finally {
+                index.lock.writeLock().unlock();
+            }
+        }
+        if (reordered > 0) {
+            logger.debug("Tag index renumbered {} users in id order", reordered);
+        }
+    }
+
+    // Whether the user's ordinals follow note id order (false means pages sort their matches)
+    boolean isIdOrdered(Long userId) {
+        UserTags index = indexes.get(userId);
+        if (index == null) {
+            return true;
+        }
+        index.lock.readLock().lock();
+        try {
+            return index.idOrdered;
+        } finally {
+            index.lock.readLock().unlock();
+        }
+    }
+
+    // Index the tagged notes of the shard the calling thread is routed to; returns how many were added
+    private int indexShard() {
+        long afterId = 0;
+        int indexed = 0;
+        List<NoteOwnerRow> batch;
+        do {
+            batch = noteRepository.findNoteOwners(afterId, PageRequest.of(0, rebuildBatchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            Map<Long, Long> owners = batch.stream().collect(Collectors.toMap(NoteOwnerRow::id, NoteOwnerRow::userId));
+            Map<Long, List<String>> tagsByNote = new HashMap<>();
+            for (NoteTag tag : noteRepository.findTagsByNoteIds(owners.keySet())) {
+                tagsByNote.computeIfAbsent(tag.noteId(), k -> new ArrayList<>()).add(tag.tag());
+            }
+            // Owner rows are in id order, so ordinals come out in id order too
+            for (NoteOwnerRow row : batch) {
+                List<String> tags = tagsByNote.get(row.id());
+                if (tags == null) {
+                    continue;
+                }
+                UserTags index = indexes.computeIfAbsent(row.userId(), u -> new UserTags());
+                index.lock.writeLock().lock();
+                try {
+                    if (!touchedDuringRebuild.contains(row.id())) {
+                        index.put(row.id(), tags);
+                        indexed++;
+                    }
+                } finally {
+                    index.lock.writeLock().unlock();
+                }
+            }
+            afterId = batch.get(batch.size() - 1).id();
+        } while (batch.size() == rebuildBatchSize);
+        return indexed;
+    }
+
+    // Tags of a single user's notes; callers hold the lock
+    private static final class UserTags {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<String, RoaringBitmap> byTag = new HashMap<>();
+        private final Map<Long, Integer> ordinals = new HashMap<>();
+        // Indexed by ordinal; a slot whose note was removed holds null tags
+        private long[] noteIds = new long[16];
+        private String[][] noteTags = new String[16][];
+        private int size;
+        // False once a note arrives with a lower id than an earlier one, e.g. from another instance's id block
+        private boolean idOrdered = true;
+
+        void put(Long noteId, Collection<String> tags) {
+            String[] distinct = tags == null ? new String[0] : new LinkedHashSet<>(tags).toArray(String[]::new);
+            Integer ordinal = ordinals.get(noteId);
+            if (ordinal == null) {
+                if (distinct.length == 0) {
+                    return;
+                }
+                ordinal = append(noteId);
+            } else {
+                unlink(ordinal);
+                if (distinct.length == 0) {
+                    release(noteId);
+                    return;
+                }
+            }
+            noteTags[ordinal] = distinct;
+            for (String tag : distinct) {
+                byTag.computeIfAbsent(tag, t -> new RoaringBitmap()).add(ordinal);
+            }
+        }
+
+        void remove(Long noteId) {
+            Integer ordinal = ordinals.get(noteId);
+            if (ordinal != null) {
+                unlink(ordinal);
+                release(noteId);
+            }
+        }
+
+        RoaringBitmap match(Collection<String> tags, boolean matchAll) {
+            List<RoaringBitmap> bitmaps = new ArrayList<>(tags.size());
+            for (String tag : new LinkedHashSet<>(tags)) {
+                RoaringBitmap bitmap = byTag.get(tag);
+                if (bitmap != null) {
+                    bitmaps.add(bitmap);
+                } else if (matchAll) {
+                    return new RoaringBitmap();
+                }
+            }
+            if (bitmaps.isEmpty()) {
+                return new RoaringBitmap();
+            }
+            if (!matchAll) {
+                return FastAggregation.or(bitmaps.toArray(RoaringBitmap[]::new));
+            }
+            // Start from the rarest tag so every AND works on the smallest possible result
+            bitmaps.sort(Comparator.comparingInt(RoaringBitmap::getCardinality));
+            RoaringBitmap result = bitmaps.get(0).clone();
+            for (int i = 1; i < bitmaps.size() && !result.isEmpty(); i++) {
+                result.and(bitmaps.get(i));
+            }
+            return result;
+        }
+
+        // Note ids at ranks [from, to) of the matches in id order
+        List<Long> ids(RoaringBitmap matches, int from, int to) {
+            List<Long> ids = new ArrayList<>(to - from);
+            if (from >= to) {
+                return ids;
+            }
+            if (idOrdered) {
+                PeekableIntIterator it = matches.getIntIterator();
+                it.advanceIfNeeded(matches.select(from));
+                while (ids.size() < to - from) {
+                    ids.add(noteIds[it.next()]);
+                }
+                return ids;
+            }
+            long[] all = new long[matches.getCardinality()];
+            IntIterator it = matches.getIntIterator();
+            for (int i = 0; it.hasNext(); i++) {
+                all[i] = noteIds[it.next()];
+            }
+            Arrays.sort(all);
+            for (int i = from; i < to; i++) {
+                ids.add(all[i]);
+            }
+            return ids;
+        }
+
+        private int append(Long noteId) {
+            if (size == noteIds.length) {
+                noteIds = Arrays.copyOf(noteIds, size * 2);
+                noteTags = Arrays.copyOf(noteTags, size * 2);
+            }
+            if (size > 0 && noteIds[size - 1] > noteId) {
+                idOrdered = false;
+            }
+            noteIds[size] = noteId;
+            ordinals.put(noteId, size);
+            return size++;
+        }
+
+        private void unlink(int ordinal) {
+            for (String tag : noteTags[ordinal]) {
+                RoaringBitmap bitmap = byTag.get(tag);
+                bitmap.remove(ordinal);
+                if (bitmap.isEmpty()) {
+                    byTag.remove(tag);
+                }
+            }
+            noteTags[ordinal] = null;
+        }
+
+        private void release(Long noteId) {
+            ordinals.remove(noteId);
+            int dead = size - ordinals.size();
+            if (dead > COMPACT_MIN_DEAD && dead > ordinals.size()) {
+                renumber();
+            }
+        }
+
+        // Renumber live notes densely in note id order, dropping dead ordinals
+        private void renumber() {
+            Integer[] live = new Integer[ordinals.size()];
+            int count = 0;
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                if (noteTags[ordinal] != null) {
+                    live[count++] = ordinal;
+                }
+            }
+            long[] oldIds = noteIds;
+            String[][] oldTags = noteTags;
+            Arrays.sort(live, 0, count, Comparator.comparingLong(ordinal -> oldIds[ordinal]));
+
+            int[] remap = new int[size];
+            int capacity = Math.max(16, Integer.highestOneBit(Math.max(1, count)) << 1);
+            noteIds = new long[capacity];
+            noteTags = new String[capacity][];
+            for (int i = 0; i < count; i++) {
+                int ordinal = live[i];
+                remap[ordinal] = i;
+                noteIds[i] = oldIds[ordinal];
+                noteTags[i] = oldTags[ordinal];
+                ordinals.put(noteIds[i], i);
+            }
+            size = count;
+            byTag.replaceAll((tag, bitmap) -> {
+                RoaringBitmap renumbered = new RoaringBitmap();
+                bitmap.forEach((int ordinal) -> renumbered.add(remap[ordinal]));
+                renumbered.runOptimize();
+                return renumbered;
+            });
+            idOrdered = true;
+        }
+    }
+}
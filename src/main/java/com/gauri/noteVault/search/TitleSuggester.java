@@ -0,0 +1,456 @@
+package com.gauri.noteVault.search;
+
+import com.gauri.noteVault.dto.NoteSuggestion;
+import com.gauri.noteVault.repository.NoteRepository;
+import com.gauri.noteVault.repository.NoteSummaryRow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Title autocomplete per user.
+ * Titles are normalized (accents stripped, lower-cased, punctuation collapsed to single spaces) and every
+ * word start becomes a key: a (note slot, offset) pair packed into a long, kept sorted by the text from
+ * that offset on. A prefix lookup is a binary search to the first key at or after the prefix and a scan
+ * of the run of keys that start with it; the most recently updated notes in that run win.
+ * Keys share the normalized title instead of holding their own strings, so a key costs eight bytes.
+ * A user's structure is built on first access and then kept current by note writes; the estimated size
+ * of all structures is capped and the least recently used users are dropped to stay under it.
+ */
+@Component
+public class TitleSuggester {
+
+    private static final Logger logger = LoggerFactory.getLogger(TitleSuggester.class);
+
+    // Rough heap cost of one note slot besides its two strings' characters: two strings, arrays, map entry
+    private static final long SLOT_BYTES = 176;
+    private static final long KEY_BYTES = Long.BYTES;
+
+    private final NoteRepository noteRepository;
+    private final long memoryBudgetBytes;
+    private final int maxWordsPerTitle;
+
+    // Access-ordered, eldest first; guarded by this
+    private final LinkedHashMap<Long, UserTitles> users = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes;
+
+    private final Counter evictions;
+
+    public TitleSuggester(NoteRepository noteRepository, MeterRegistry registry,
+                          @Value("${notes.suggest.memory-budget-bytes:67108864}") long memoryBudgetBytes,
+                          @Value("${notes.suggest.max-words-per-title:8}") int maxWordsPerTitle) {
+        this.noteRepository = noteRepository;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.maxWordsPerTitle = Math.max(1, maxWordsPerTitle);
+
+        this.evictions = Counter.builder("notevault.suggest.evictions")
+                .description("Users whose autocomplete index was dropped to stay within the memory budget")
+                .register(registry);
+        Gauge.builder("notevault.suggest.bytes", this, TitleSuggester::usedBytes).baseUnit("bytes")
+                .description("Estimated heap used by autocomplete indexes").register(registry);
+        Gauge.builder("notevault.suggest.users", this, TitleSuggester::loadedUsers)
+                .description("Users whose autocomplete index is in memory").register(registry);
+    }
+
+    // Up to limit notes whose title has a word starting with the prefix, most recently updated first
+    public List<NoteSuggestion> suggest(Long userId, String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        UserTitles titles;
+        synchronized (this) {
+            titles = users.computeIfAbsent(userId, u -> new UserTitles(maxWordsPerTitle));
+        }
+        if (titles.ensureLoaded(() -> noteRepository.findAllSummariesByUserId(userId))) {
+            logger.debug("Autocomplete index built for user ID: {} ({} bytes)", userId, titles.bytes());
+        }
+        account(titles);
+        return titles.suggest(normalized, limit);
+    }
+
+    // Users without a structure in memory are skipped; theirs is built from the database on next access
+    public void put(Long userId, Long noteId, String title, LocalDateTime updatedAt) {
+        UserTitles titles = resident(userId);
+        if (titles != null) {
+            titles.put(noteId, title, updatedAt);
+            account(titles);
+        }
+    }
+
+    public void remove(Long userId, Long noteId) {
+        UserTitles titles = resident(userId);
+        if (titles != null) {
+            titles.remove(noteId);
+            account(titles);
+        }
+    }
+
+    public synchronized long usedBytes() {
+        return usedBytes;
+    }
+
+    public synchronized int loadedUsers() {
+        return users.size();
+    }
+
+    private synchronized UserTitles resident(Long userId) {
+        return users.get(userId);
+    }
+
+    // Record a structure's new size, then drop cold users until the total fits; the caller's own stays
+    private synchronized void account(UserTitles titles) {
+        if (titles.evicted) {
+            return;
+        }
+        long bytes = titles.bytes();
+        usedBytes += bytes - titles.accountedBytes;
+        titles.accountedBytes = bytes;
+
+        Iterator<UserTitles> eldest = users.values().iterator();
+        while (usedBytes > memoryBudgetBytes && eldest.hasNext()) {
+            UserTitles candidate = eldest.next();
+            if (candidate != titles) {
+                eldest.remove();
+                candidate.evicted = true;
+                usedBytes -= candidate.accountedBytes;
+                evictions.increment();
+            }
+        }
+    }
+
+    // Lower-case, strip accents and turn every run of non letters/digits into one space
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder out = new StringBuilder(decomposed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && !out.isEmpty()) {
+                    out.append(' ');
+                }
+                pendingSpace = false;
+                out.append(c);
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return out.toString().toLowerCase(Locale.ROOT);
+    }
+
+    // One user's titles; reads take the read lock, writes and the initial load the write lock
+    private static final class UserTitles {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Object loadLock = new Object();
+        private final int maxWords;
+        private volatile boolean loaded;
+        // Notes written while the initial load was reading; the load must not overwrite them
+        private Set<Long> touchedWhileLoading;
+
+        // Guarded by the enclosing suggester
+        private boolean evicted;
+        private long accountedBytes;
+
+        private final Map<Long, Integer> slots = new HashMap<>();
+        private long[] noteIds = new long[16];
+        private long[] updated = new long[16];
+        private String[] titles = new String[16];
+        private String[] normalized = new String[16];
+        private int[] freeSlots = new int[16];
+        private int freeCount;
+        private int slotCount;
+
+        // (slot << 32 | offset), sorted by normalized[slot] from offset
+        private long[] keys = new long[0];
+        private int keyCount;
+        private long chars;
+
+        UserTitles(int maxWords) {
+            this.maxWords = maxWords;
+        }
+
+        // Load the user's titles once; true when this call did the load
+        boolean ensureLoaded(Supplier<List<NoteSummaryRow>> loader) {
+            if (loaded) {
+                return false;
+            }
+            synchronized (loadLock) {
+                if (loaded) {
+                    return false;
+                }
+                lock.writeLock().lock();
+                try {
+                    touchedWhileLoading = new HashSet<>();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+
+                List<NoteSummaryRow> rows = loader.get();
+
+                lock.writeLock().lock();
+                try {
+                    List<Long> added = new ArrayList<>(rows.size() * 2);
+                    for (NoteSummaryRow row : rows) {
+                        if (!touchedWhileLoading.contains(row.id()) && !slots.containsKey(row.id())) {
+                            int slot = store(row.id(), row.title(), row.updatedAt());
+                            if (slot >= 0) {
+                                wordStarts(slot, added);
+                            }
+                        }
+                    }
+                    mergeKeys(added);
+                    touchedWhileLoading = null;
+                    loaded = true;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                return true;
+            }
+        }
+
+        void put(Long noteId, String title, LocalDateTime updatedAt) {
+            lock.writeLock().lock();
+            try {
+                if (touchedWhileLoading != null) {
+                    touchedWhileLoading.add(noteId);
+                }
+                release(noteId);
+                int slot = store(noteId, title, updatedAt);
+                if (slot >= 0) {
+                    List<Long> added = new ArrayList<>(maxWords);
+                    wordStarts(slot, added);
+                    mergeKeys(added);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Long noteId) {
+            lock.writeLock().lock();
+            try {
+                if (touchedWhileLoading != null) {
+                    touchedWhileLoading.add(noteId);
+                }
+                release(noteId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        List<NoteSuggestion> suggest(String prefix, int limit) {
+            lock.readLock().lock();
+            try {
+                // Min-heap on recency holding the best slots seen so far
+                Comparator<Integer> byRecency = Comparator.<Integer>comparingLong(slot -> updated[slot])
+                        .thenComparingLong(slot -> noteIds[slot]);
+                PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, byRecency);
+                for (int i = lowerBound(prefix); i < keyCount; i++) {
+                    int slot = slotOf(keys[i]);
+                    if (!normalized[slot].startsWith(prefix, offsetOf(keys[i]))) {
+                        break;
+                    }
+                    // A title with several matching words yields its slot more than once
+                    if (best.contains(slot)) {
+                        continue;
+                    }
+                    if (best.size() < limit) {
+                        best.add(slot);
+                    } else if (byRecency.compare(slot, best.peek()) > 0) {
+                        best.poll();
+                        best.add(slot);
+                    }
+                }
+
+                NoteSuggestion[] result = new NoteSuggestion[best.size()];
+                for (int i = result.length - 1; i >= 0; i--) {
+                    int slot = best.poll();
+                    result[i] = new NoteSuggestion(noteIds[slot], titles[slot]);
+                }
+                return Arrays.asList(result);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        long bytes() {
+            lock.readLock().lock();
+            try {
+                return slots.size() * SLOT_BYTES + (long) keys.length * KEY_BYTES + chars;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        // Put a note in a free slot; -1 when its title has nothing to match
+        private int store(Long noteId, String title, LocalDateTime updatedAt) {
+            String norm = normalize(title);
+            if (norm.isEmpty()) {
+                return -1;
+            }
+            int slot;
+            if (freeCount > 0) {
+                slot = freeSlots[--freeCount];
+            } else {
+                if (slotCount == noteIds.length) {
+                    int capacity = slotCount * 2;
+                    noteIds = Arrays.copyOf(noteIds, capacity);
+                    updated = Arrays.copyOf(updated, capacity);
+                    titles = Arrays.copyOf(titles, capacity);
+                    normalized = Arrays.copyOf(normalized, capacity);
+                }
+                slot = slotCount++;
+            }
+            noteIds[slot] = noteId;
+            updated[slot] = updatedAt != null ? updatedAt.toInstant(ZoneOffset.UTC).toEpochMilli() : 0;
+            titles[slot] = title;
+            normalized[slot] = norm;
+            slots.put(noteId, slot);
+            chars += title.length() + norm.length();
+            return slot;
+        }
+
+        // Drop a note's keys and free its slot
+        private void release(Long noteId) {
+            Integer slot = slots.remove(noteId);
+            if (slot == null) {
+                return;
+            }
+            dropKeys(slot);
+            chars -= titles[slot].length() + normalized[slot].length();
+            titles[slot] = null;
+            normalized[slot] = null;
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+        }
+
+        // Remove all of a slot's keys in one compaction pass, starting from the first of them
+        private void dropKeys(int slot) {
+            String norm = normalized[slot];
+            int from = keyCount;
+            for (int offset = 0, words = 0; offset < norm.length() && words < maxWords; offset++) {
+                if (offset == 0 || norm.charAt(offset - 1) == ' ') {
+                    from = Math.min(from, lowerBound(norm, offset));
+                    words++;
+                }
+            }
+            int kept = from;
+            for (int i = from; i < keyCount; i++) {
+                if (slotOf(keys[i]) != slot) {
+                    keys[kept++] = keys[i];
+                }
+            }
+            keyCount = kept;
+        }
+
+        private void wordStarts(int slot, List<Long> out) {
+            String norm = normalized[slot];
+            int words = 0;
+            for (int offset = 0; offset < norm.length() && words < maxWords; offset++) {
+                if (offset == 0 || norm.charAt(offset - 1) == ' ') {
+                    out.add(((long) slot << 32) | offset);
+                    words++;
+                }
+            }
+        }
+
+        // Sort the new keys and merge them into the existing sorted run
+        private void mergeKeys(List<Long> added) {
+            if (added.isEmpty()) {
+                return;
+            }
+            added.sort((a, b) -> compareKeys(a, b));
+            long[] merged = keyCount + added.size() <= keys.length ? keys : new long[(keyCount + added.size()) * 5 / 4];
+            int i = keyCount - 1;
+            int j = added.size() - 1;
+            // Fill from the back so merging in place never overwrites unread keys; in place, the keys
+            // before the smallest added one are already where they belong
+            for (int k = keyCount + added.size() - 1; k >= 0 && (j >= 0 || merged != keys); k--) {
+                if (j < 0 || (i >= 0 && compareKeys(keys[i], added.get(j)) > 0)) {
+                    merged[k] = keys[i--];
+                } else {
+                    merged[k] = added.get(j--);
+                }
+            }
+            keys = merged;
+            keyCount += added.size();
+        }
+
+        // First key whose text is not less than the prefix
+        private int lowerBound(String prefix) {
+            return lowerBound(prefix, 0);
+        }
+
+        private int lowerBound(String text, int from) {
+            int low = 0;
+            int high = keyCount;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compareText(normalized[slotOf(keys[mid])], offsetOf(keys[mid]), text, from) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int compareKeys(long a, long b) {
+            return compareText(normalized[slotOf(a)], offsetOf(a), normalized[slotOf(b)], offsetOf(b));
+        }
+
+        private static int compareText(String a, int aFrom, String b, int bFrom) {
+            int aLen = a.length() - aFrom;
+            int bLen = b.length() - bFrom;
+            int n = Math.min(aLen, bLen);
+            for (int k = 0; k < n; k++) {
+                char x = a.charAt(aFrom + k);
+                char y = b.charAt(bFrom + k);
+                if (x != y) {
+                    return x - y;
+                }
+            }
+            return aLen - bLen;
+        }
+
+        private static int slotOf(long key) {
+            return (int) (key >>> 32);
+        }
+
+        private static int offsetOf(long key) {
+            return (int) key;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.gauri.noteVault.security;
+
+import java.security.Principal;
+
+/**
+ * Principal placed in the security context for JWT-authenticated requests.
+ * Carries only what the API needs; the password hash never leaves the users table.
+ */
+public record AuthenticatedUser(Long id, String username) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
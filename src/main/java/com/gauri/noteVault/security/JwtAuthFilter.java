@@ -1,7 +1,11 @@
 package com.gauri.noteVault.security;
 
-import com.gauri.noteVault.entity.User;
+import com.gauri.noteVault.datasource.ReadRouting;
 import com.gauri.noteVault.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,22 +14,41 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final boolean trustClaims;
     private final Logger logger = LoggerFactory.getLogger(JwtAuthFilter.class);
 
-    public JwtAuthFilter(JwtUtil jwtUtil, UserRepository userRepository) {
+    // Meters are resolved once here so the per-request cost is a clock read and an add
+    private final Timer verifyValid;
+    private final Timer verifyInvalid;
+    private final Counter principalFromClaims;
+    private final Counter principalFromCache;
+    private final Counter principalFromDatabase;
+    private final Counter principalUnknown;
+
+    public JwtAuthFilter(JwtUtil jwtUtil, UserRepository userRepository, PrincipalCache principalCache,
+                         boolean trustClaims, MeterRegistry registry) {
         this.jwtUtil = jwtUtil;
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
+        this.trustClaims = trustClaims;
+        this.verifyValid = verifyTimer(registry, "valid");
+        this.verifyInvalid = verifyTimer(registry, "invalid");
+        this.principalFromClaims = principalCounter(registry, "claims");
+        this.principalFromCache = principalCounter(registry, "cache");
+        this.principalFromDatabase = principalCounter(registry, "database");
+        this.principalUnknown = principalCounter(registry, "unknown");
     }
 
     @Override
@@ -42,34 +65,27 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
 
         String authHeader = request.getHeader("Authorization");
-        String token = null;
+        Claims claims = null;
         String username = null;
 
-        try {
-            if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                token = authHeader.substring(7);
-                if (jwtUtil.validateToken(token)) {
-                    username = jwtUtil.extractUsername(token);
-                }
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            // Signature and expiry are checked once; invalid tokens come back as null
+            long started = System.nanoTime();
+            claims = jwtUtil.verify(authHeader.substring(7));
+            (claims != null ? verifyValid : verifyInvalid).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            if (claims != null) {
+                username = claims.getSubject();
             }
-        } catch (Exception e) {
-            logger.warn("Invalid JWT: {}", e.getMessage());
         }
 
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            User user = userRepository.findByUsername(username).orElse(null);
-            if (user != null) {
-                UserDetails userDetails = org.springframework.security.core.userdetails.User
-                        .withUsername(user.getUsername())
-                        .password(user.getPassword())
-                        .authorities(Collections.emptyList())
-                        .build();
-
+            AuthenticatedUser principal = resolvePrincipal(claims, username);
+            if (principal != null) {
                 UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(
-                                userDetails,
+                                principal,
                                 null,
-                                userDetails.getAuthorities()
+                                Collections.emptyList()
                         );
 
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -80,4 +96,45 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    // Principal from the signed claims (trusted mode), the cache, or finally the users table
+    private AuthenticatedUser resolvePrincipal(Claims claims, String username) {
+        if (trustClaims) {
+            Long userId = JwtUtil.userId(claims);
+            if (userId != null) {
+                principalFromClaims.increment();
+                return new AuthenticatedUser(userId, username);
+            }
+        }
+
+        AuthenticatedUser principal = principalCache.get(username);
+        if (principal != null) {
+            principalFromCache.increment();
+            return principal;
+        }
+        principal = userRepository.findPrincipalByUsername(username)
+                // A replica can lag behind a registration that just happened; the primary has the final say
+                .or(() -> ReadRouting.onPrimary(() -> userRepository.findPrincipalByUsername(username)))
+                .orElse(null);
+        if (principal != null) {
+            principalFromDatabase.increment();
+            principalCache.put(principal);
+        } else {
+            principalUnknown.increment();
+        }
+        return principal;
+    }
+
+    private static Timer verifyTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("notevault.jwt.verify")
+                .description("JWT verification time, including verified-token cache lookups")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static Counter principalCounter(MeterRegistry registry, String source) {
+        return Counter.builder("notevault.jwt.principal")
+                .description("Where the request principal was resolved from")
+                .tag("source", source)
+                .register(registry);
+    }
 }
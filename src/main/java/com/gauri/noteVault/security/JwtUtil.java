@@ -1,62 +1,135 @@
 package com.gauri.noteVault.security;
 
+import com.gauri.noteVault.cache.BoundedCache;
+import com.gauri.noteVault.cache.CacheStats;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
 
 @Component
 public class JwtUtil {
 
+    private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
+
+    // Claim carrying the user's id so trusted tokens can skip the users table
+    public static final String USER_ID_CLAIM = "uid";
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    });
+
     private final Key key;
     private final long jwtExpirationMs;
+    // Parsers are immutable and thread-safe, so one instance serves every request
+    private final JwtParser parser;
+    // Claims of recently verified tokens keyed by the token's SHA-256 digest; null when disabled
+    private final BoundedCache<ByteBuffer, Claims> verifiedTokens;
 
     public JwtUtil(@Value("${jwt.secret}") String secret,
-                   @Value("${jwt.expiration-ms}") long jwtExpirationMs) {
+                   @Value("${jwt.expiration-ms}") long jwtExpirationMs,
+                   @Value("${jwt.verified-cache.max-size:10000}") int verifiedCacheSize,
+                   @Value("${jwt.verified-cache.ttl-ms:60000}") long verifiedCacheTtlMs) {
         // Ensure at least 32-byte secret for HS256
         if (secret.length() < 32) {
             throw new IllegalArgumentException("JWT secret must be at least 32 characters long!");
         }
         this.key = Keys.hmacShaKeyFor(secret.getBytes());
         this.jwtExpirationMs = jwtExpirationMs;
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.verifiedTokens = verifiedCacheSize > 0
+                ? new BoundedCache<>(verifiedCacheSize, Duration.ofMillis(verifiedCacheTtlMs))
+                : null;
     }
 
-    public String generateToken(String username) {
+    public String generateToken(String username, Long userId) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
         return Jwts.builder()
                 .setSubject(username)
+                .claim(USER_ID_CLAIM, userId)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
                 .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public String extractUsername(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
-    }
+    /**
+     * Verify the signature and expiry once and return the claims, or null if the token is not valid.
+     * Hot tokens are served from the verified-token cache until they expire.
+     */
+    public Claims verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
 
-    public boolean validateToken(String token) {
+        ByteBuffer digest = null;
+        if (verifiedTokens != null) {
+            digest = digest(token);
+            Claims cached = verifiedTokens.get(digest);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        Claims claims;
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
-            return true;
+            claims = parser.parseClaimsJws(token).getBody();
         } catch (ExpiredJwtException ex) {
-            System.out.println("JWT expired: " + ex.getMessage());
+            logger.debug("JWT expired: {}", ex.getMessage());
+            return null;
         } catch (UnsupportedJwtException ex) {
-            System.out.println("Unsupported JWT: " + ex.getMessage());
+            logger.warn("Unsupported JWT: {}", ex.getMessage());
+            return null;
         } catch (MalformedJwtException ex) {
-            System.out.println("Malformed JWT: " + ex.getMessage());
-        } catch (SecurityException | IllegalArgumentException ex) {
-            System.out.println("Invalid JWT: " + ex.getMessage());
+            logger.warn("Malformed JWT: {}", ex.getMessage());
+            return null;
+        } catch (JwtException | IllegalArgumentException ex) {
+            logger.warn("Invalid JWT: {}", ex.getMessage());
+            return null;
+        }
+
+        if (verifiedTokens != null && claims.getExpiration() != null) {
+            long remainingMs = claims.getExpiration().getTime() - System.currentTimeMillis();
+            verifiedTokens.put(digest, claims, Duration.ofMillis(remainingMs));
         }
-        return false;
+        return claims;
+    }
+
+    public String extractUsername(String token) {
+        Claims claims = verify(token);
+        return claims != null ? claims.getSubject() : null;
+    }
+
+    public boolean validateToken(String token) {
+        return verify(token) != null;
+    }
+
+    public CacheStats verifiedCacheStats() {
+        return verifiedTokens != null ? verifiedTokens.stats() : new CacheStats(0, 0, 0, 0);
+    }
+
+    // Returns null for tokens issued before the id claim was added
+    public static Long userId(Claims claims) {
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        return userId != null ? userId.longValue() : null;
+    }
+
+    private static ByteBuffer digest(String token) {
+        return ByteBuffer.wrap(SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
     }
 }
@@ -0,0 +1,110 @@
+package com.gauri.noteVault.security;
+
+import com.gauri.noteVault.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing on a CPU-sized pool with a bounded queue, away from the request threads.
+ * When the queue is full the request is rejected at once with ServiceOverloadedException
+ * instead of waiting behind a growing backlog of hashes.
+ */
+@Component
+public class PasswordHashingService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    // Outcome of a password check; upgradedHash is set when the stored hash used a weaker strength
+    public record Verification(boolean matches, String upgradedHash) {
+    }
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long retryAfterSeconds;
+    private final Counter rejected;
+    private final Timer queueWait;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder, MeterRegistry registry,
+                                  @Value("${security.password-hashing.threads:0}") int threads,
+                                  @Value("${security.password-hashing.queue-capacity:64}") int queueCapacity,
+                                  @Value("${security.password-hashing.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.passwordEncoder = passwordEncoder;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        // Hashing is pure CPU work, so more threads than cores only adds contention
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("notevault.password.queue.size", executor, e -> e.getQueue().size())
+                .description("Password hashes waiting for a hashing thread")
+                .register(registry);
+        Gauge.builder("notevault.password.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashes currently running")
+                .register(registry);
+        this.rejected = Counter.builder("notevault.password.rejected")
+                .description("Password hashes refused because the queue was full")
+                .register(registry);
+        this.queueWait = Timer.builder("notevault.password.queue.wait")
+                .description("Time a password hash waited for a hashing thread")
+                .register(registry);
+        logger.info("Password hashing pool started with {} threads and a queue of {}", poolSize, queueCapacity);
+    }
+
+    public CompletableFuture<String> encode(CharSequence rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    // Check a password and, when it matches a hash of outdated strength, compute its replacement in the same task
+    public CompletableFuture<Verification> verify(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> {
+            if (!passwordEncoder.matches(rawPassword, encodedPassword)) {
+                return new Verification(false, null);
+            }
+            String upgraded = passwordEncoder.upgradeEncoding(encodedPassword) ? passwordEncoder.encode(rawPassword) : null;
+            return new Verification(true, upgraded);
+        });
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        long queuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                queueWait.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return task.get();
+            }, executor);
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            logger.warn("Password hashing queue full ({} waiting), rejecting request", executor.getQueue().size());
+            throw new ServiceOverloadedException("Too many authentication requests, please retry shortly", retryAfterSeconds);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,39 @@
+package com.gauri.noteVault.security;
+
+import com.gauri.noteVault.cache.BoundedCache;
+import com.gauri.noteVault.cache.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Resolved principals keyed by username, so authenticated requests skip the users table.
+ * Entries expire after a short TTL and are evicted explicitly when AuthService changes an account.
+ */
+@Component
+public class PrincipalCache {
+
+    private final BoundedCache<String, AuthenticatedUser> cache;
+
+    public PrincipalCache(@Value("${security.principal-cache.max-size:10000}") int maxSize,
+                          @Value("${security.principal-cache.ttl-ms:300000}") long ttlMs) {
+        this.cache = new BoundedCache<>(maxSize, Duration.ofMillis(ttlMs));
+    }
+
+    public AuthenticatedUser get(String username) {
+        return cache.get(username);
+    }
+
+    public void put(AuthenticatedUser user) {
+        cache.put(user.username(), user);
+    }
+
+    public void invalidate(String username) {
+        cache.invalidate(username);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,60 @@
+package com.gauri.noteVault.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Runs after JwtAuthFilter: authenticated requests draw from the user's bucket, everything else from the client address
+// The remote address is the client's own when the request came through a trusted proxy (server.forward-headers-strategy)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+
+    public RateLimitFilter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String path = request.getRequestURI();
+        // Only GETs are searches; reading parameters of other requests could consume a form body
+        String query = "GET".equals(request.getMethod()) ? request.getParameter("q") : null;
+        int cost = rateLimiter.costOf(request.getMethod(), path, query != null && !query.isBlank());
+        if (cost == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        RateLimiter.Decision decision = authentication != null
+                && authentication.getPrincipal() instanceof AuthenticatedUser user
+                && !path.startsWith("/api/auth/")
+                ? rateLimiter.acquireForUser(user.id(), cost)
+                : rateLimiter.acquireForAddress(request.getRemoteAddr(), cost);
+
+        response.setHeader("X-RateLimit-Limit", Long.toString(decision.limit()));
+        response.setHeader("X-RateLimit-Remaining", Long.toString(decision.remaining()));
+        if (!decision.allowed()) {
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(decision.retryAfterNanos() + 999_999_999L));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"message\":\"Rate limit exceeded, retry in " + retryAfter + " s\"}");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,213 @@
+package com.gauri.noteVault.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets per authenticated user and per client address, each kept in a single AtomicLong.
+ * The bucket is stored as its "theoretical arrival time" (GCRA): a request of cost c pushes it forward
+ * by c refill intervals and is allowed while it stays within one burst of now, so taking tokens is a
+ * single compare-and-set with no lock and no background refill.
+ * A bucket whose arrival time is in the past is full again and carries no state, which is what makes
+ * idle eviction lossless; the maps are swept periodically and when they reach their size bound.
+ * When a map is still full after the sweep, new keys share one overflow bucket, so a flood of fresh
+ * keys is throttled as a whole instead of passing unmetered. IPv6 clients are limited per /64 network,
+ * the smallest block a single host can usually pick addresses from.
+ */
+@Component
+public class RateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
+
+    // Outcome of one acquisition; limit and remaining are in tokens, retryAfterNanos is 0 when allowed
+    public record Decision(boolean allowed, long limit, long remaining, long retryAfterNanos) {
+    }
+
+    private record Policy(long intervalNanos, long burst) {
+
+        static Policy of(double ratePerSecond, long burst) {
+            return new Policy((long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond), Math.max(1, burst));
+        }
+
+        long burstNanos() {
+            return intervalNanos * burst;
+        }
+    }
+
+    private final boolean enabled;
+    private final Policy userPolicy;
+    private final Policy addressPolicy;
+    private final int maxKeys;
+
+    private final int getCost;
+    private final int listCost;
+    private final int searchCost;
+    private final int writeCost;
+    private final int batchCost;
+    private final int transferCost;
+    private final int authCost;
+
+    private final Map<Long, AtomicLong> users = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> addresses = new ConcurrentHashMap<>();
+    private final AtomicLong userOverflow = new AtomicLong(System.nanoTime());
+    private final AtomicLong addressOverflow = new AtomicLong(System.nanoTime());
+
+    private final Counter userRejections;
+    private final Counter addressRejections;
+    private final Counter overflowed;
+
+    public RateLimiter(MeterRegistry registry,
+                       @Value("${rate-limit.enabled:true}") boolean enabled,
+                       @Value("${rate-limit.user.rate-per-second:20}") double userRate,
+                       @Value("${rate-limit.user.burst:60}") long userBurst,
+                       @Value("${rate-limit.address.rate-per-second:2}") double addressRate,
+                       @Value("${rate-limit.address.burst:10}") long addressBurst,
+                       @Value("${rate-limit.max-keys:100000}") int maxKeys,
+                       @Value("${rate-limit.cost.get:1}") int getCost,
+                       @Value("${rate-limit.cost.list:2}") int listCost,
+                       @Value("${rate-limit.cost.search:5}") int searchCost,
+                       @Value("${rate-limit.cost.write:2}") int writeCost,
+                       @Value("${rate-limit.cost.batch:10}") int batchCost,
+                       @Value("${rate-limit.cost.transfer:20}") int transferCost,
+                       @Value("${rate-limit.cost.auth:1}") int authCost) {
+        this.enabled = enabled;
+        this.userPolicy = Policy.of(userRate, userBurst);
+        this.addressPolicy = Policy.of(addressRate, addressBurst);
+        this.maxKeys = maxKeys;
+        this.getCost = getCost;
+        this.listCost = listCost;
+        this.searchCost = searchCost;
+        this.writeCost = writeCost;
+        this.batchCost = batchCost;
+        this.transferCost = transferCost;
+        this.authCost = authCost;
+
+        this.userRejections = Counter.builder("notevault.ratelimit.rejected").tag("scope", "user")
+                .description("Requests refused by the rate limiter").register(registry);
+        this.addressRejections = Counter.builder("notevault.ratelimit.rejected").tag("scope", "address")
+                .description("Requests refused by the rate limiter").register(registry);
+        this.overflowed = Counter.builder("notevault.ratelimit.overflow")
+                .description("Requests metered by a shared overflow bucket because the bucket maps were full")
+                .register(registry);
+        Gauge.builder("notevault.ratelimit.buckets", users, Map::size).tag("scope", "user")
+                .description("Buckets currently tracked").register(registry);
+        Gauge.builder("notevault.ratelimit.buckets", addresses, Map::size).tag("scope", "address")
+                .description("Buckets currently tracked").register(registry);
+    }
+
+    // Tokens a request costs; 0 means the request is not limited
+    public int costOf(String method, String path, boolean search) {
+        if (!enabled) {
+            return 0;
+        }
+        if (path.startsWith("/api/auth/")) {
+            return authCost;
+        }
+        if (!path.startsWith("/api/notes")) {
+            return 0;
+        }
+        String rest = path.substring("/api/notes".length());
+        boolean read = method.equals("GET") || method.equals("HEAD");
+        return switch (rest) {
+            case "", "/" -> read ? (search ? searchCost : listCost) : writeCost;
+            case "/changes" -> listCost;
+            case "/batch" -> batchCost;
+            case "/import", "/export" -> transferCost;
+            default -> read ? getCost : writeCost;
+        };
+    }
+
+    public Decision acquireForUser(Long userId, int cost) {
+        Decision decision = acquire(bucket(users, userId, userOverflow), userPolicy, cost);
+        if (!decision.allowed()) {
+            userRejections.increment();
+        }
+        return decision;
+    }
+
+    public Decision acquireForAddress(String address, int cost) {
+        Decision decision = acquire(bucket(addresses, networkOf(address), addressOverflow), addressPolicy, cost);
+        if (!decision.allowed()) {
+            addressRejections.increment();
+        }
+        return decision;
+    }
+
+    // Drop buckets that have refilled completely; they hold nothing a fresh bucket would not
+    @Scheduled(fixedDelayString = "${rate-limit.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        users.values().removeIf(bucket -> bucket.get() - now <= 0);
+        addresses.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+
+    // The shared overflow bucket when the map is full even after eviction: fails closed, not open
+    private <K> AtomicLong bucket(Map<K, AtomicLong> buckets, K key, AtomicLong overflow) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys) {
+            evictIdle();
+            if (buckets.size() >= maxKeys) {
+                overflowed.increment();
+                logger.debug("Rate limiter holds {} buckets, metering {} with the overflow bucket", buckets.size(), key);
+                return overflow;
+            }
+        }
+        return buckets.computeIfAbsent(key, k -> new AtomicLong(System.nanoTime()));
+    }
+
+    // IPv6 addresses are reduced to their /64 network; IPv4 addresses are used as they are
+    static String networkOf(String address) {
+        if (address == null || address.indexOf(':') < 0) {
+            return address;
+        }
+        try {
+            // A literal address is parsed, never looked up
+            byte[] bytes = InetAddress.getByName(address).getAddress();
+            if (bytes.length != 16) {
+                return address;
+            }
+            StringBuilder network = new StringBuilder();
+            for (int i = 0; i < 8; i += 2) {
+                network.append(Integer.toHexString(((bytes[i] & 0xff) << 8) | (bytes[i + 1] & 0xff))).append(':');
+            }
+            return network.append(":/64").toString();
+        } catch (UnknownHostException ex) {
+            return address;
+        }
+    }
+
+    private static Decision acquire(AtomicLong bucket, Policy policy, int cost) {
+        long increment = policy.intervalNanos() * Math.min(cost, policy.burst());
+        long burstNanos = policy.burstNanos();
+        while (true) {
+            long now = System.nanoTime();
+            long current = bucket.get();
+            long base = current - now > 0 ? current : now;
+            long next = base + increment;
+            long wait = next - burstNanos - now;
+            if (wait > 0) {
+                long remaining = (burstNanos - (base - now)) / policy.intervalNanos();
+                return new Decision(false, policy.burst(), remaining, wait);
+            }
+            if (bucket.compareAndSet(current, next)) {
+                return new Decision(true, policy.burst(), (burstNanos - (next - now)) / policy.intervalNanos(), 0);
+            }
+        }
+    }
+}
@@ -1,54 +1,103 @@
 package com.gauri.noteVault.service;
 
+import com.gauri.noteVault.datasource.ReadRouting;
+import com.gauri.noteVault.datasource.ShardRouting;
 import com.gauri.noteVault.dto.AuthRequest;
 import com.gauri.noteVault.dto.AuthResponse;
 import com.gauri.noteVault.dto.RegisterRequest;
 import com.gauri.noteVault.entity.User;
+import com.gauri.noteVault.entity.UserNoteCounter;
+import com.gauri.noteVault.repository.UserNoteCounterRepository;
 import com.gauri.noteVault.repository.UserRepository;
 import com.gauri.noteVault.security.JwtUtil;
+import com.gauri.noteVault.security.PasswordHashingService;
+import com.gauri.noteVault.security.PrincipalCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 @Service
-public class AuthService {
+public class AuthService implements DisposableBean {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashing;
     private final JwtUtil jwtUtil;
+    private final PrincipalCache principalCache;
+    private final UserNoteCounterRepository counterRepository;
+    private final ThreadPoolExecutor accountWrites;
 
-    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder, JwtUtil jwtUtil) {
+    public AuthService(UserRepository userRepository, PasswordHashingService passwordHashing, JwtUtil jwtUtil,
+                       PrincipalCache principalCache, UserNoteCounterRepository counterRepository,
+                       @Value("${security.auth.db-threads:4}") int dbThreads) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashing = passwordHashing;
         this.jwtUtil = jwtUtil;
+        this.principalCache = principalCache;
+        this.counterRepository = counterRepository;
+
+        // The database work that follows a hash runs here, so hashing threads never wait for a connection.
+        // Every task comes from a finished hash, so the hashing pool's own queue already bounds this one
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.accountWrites = new ThreadPoolExecutor(dbThreads, dbThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "auth-db-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
     }
 
     // Handles user registration and returns JWT token after successful registration
-    public AuthResponse register(RegisterRequest req) {
+    // The hash runs on the hashing pool; the account is saved on the auth-db pool once it is done
+    public CompletableFuture<AuthResponse> register(RegisterRequest req) {
         String username = req.getUsername().trim();
         logger.info("Attempting registration for username: {}", username);
 
-        if (userRepository.existsByUsername(username)) {
+        // Credential reads go to the primary: a replica may not have a just-registered account yet
+        if (ReadRouting.onPrimary(() -> userRepository.existsByUsername(username))) {
             logger.warn("Registration failed - username already exists: {}", username);
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Username already exists");
         }
 
+        return passwordHashing.encode(req.getPassword()).thenApplyAsync(hash -> completeRegistration(req, username, hash), accountWrites);
+    }
+
+    private AuthResponse completeRegistration(RegisterRequest req, String username, String passwordHash) {
         User user = User.builder()
                 .username(username)
-                .password(passwordEncoder.encode(req.getPassword()))
+                .password(passwordHash)
                 .roles("USER")
                 .fullName(req.getFullName())
                 .build();
 
-        userRepository.save(user);
+        try {
+            userRepository.save(user);
+        } catch (DataIntegrityViolationException ex) {
+            // Registered by a concurrent request between the existence check and this insert
+            logger.warn("Registration failed - username already exists: {}", username);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Username already exists");
+        }
+        // Kept out of a transaction spanning the password hash; ChangeSequence recreates the row if this fails.
+        // The counter lives next to the user's notes, which may be on another shard than the account
+        ShardRouting.forUser(user.getId(), () -> counterRepository.save(new UserNoteCounter(user.getId(), 0, 0L)));
+        // A re-registered username must not resolve to a principal cached for the old account
+        principalCache.invalidate(username);
         logger.info("User registered successfully: {}", username);
 
-        String token = jwtUtil.generateToken(user.getUsername());
+        String token = jwtUtil.generateToken(user.getUsername(), user.getId());
         logger.debug("JWT generated for user: {}", username);
 
         return new AuthResponse(
@@ -59,22 +108,33 @@ public class AuthService {
     }
 
     // Handles user login and returns a new JWT token
-    public AuthResponse login(AuthRequest req) {
+    // Hashes of an outdated strength are replaced with one at the configured strength on a successful login
+    public CompletableFuture<AuthResponse> login(AuthRequest req) {
         String username = req.getUsername().trim();
         logger.info("Login attempt for username: {}", username);
 
-        User user = userRepository.findByUsername(username)
+        User user = ReadRouting.onPrimary(() -> userRepository.findByUsername(username))
                 .orElseThrow(() -> {
                     logger.warn("Login failed - user not found: {}", username);
                     return new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid credentials");
                 });
 
-        if (!passwordEncoder.matches(req.getPassword(), user.getPassword())) {
+        return passwordHashing.verify(req.getPassword(), user.getPassword())
+                .thenApplyAsync(verification -> completeLogin(user, verification), accountWrites);
+    }
+
+    private AuthResponse completeLogin(User user, PasswordHashingService.Verification verification) {
+        String username = user.getUsername();
+        if (!verification.matches()) {
             logger.warn("Login failed - invalid password for user: {}", username);
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid credentials");
         }
+        if (verification.upgradedHash() != null) {
+            userRepository.updatePassword(user.getId(), verification.upgradedHash());
+            logger.info("Password hash upgraded to the configured strength for user: {}", username);
+        }
 
-        String token = jwtUtil.generateToken(user.getUsername());
+        String token = jwtUtil.generateToken(user.getUsername(), user.getId());
         logger.info("Login successful for user: {}", username);
         logger.debug("JWT generated for user: {}", username);
 
@@ -84,4 +144,9 @@ public class AuthService {
                 token
         );
     }
+
+    @Override
+    public void destroy() {
+        accountWrites.shutdown();
+    }
 }
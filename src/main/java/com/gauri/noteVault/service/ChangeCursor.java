@@ -0,0 +1,36 @@
+package com.gauri.noteVault.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a user's change feed: every change after (seq, id) is still to be delivered.
+ * The id breaks ties between notes sharing a sequence, which only happens for notes written before
+ * change tracking existed (all at seq 0); tombstone sequences are always unique.
+ * issuedAt is the moment from which tombstones for those changes are guaranteed to be kept,
+ * so a cursor older than the tombstone retention can no longer be served.
+ */
+public record ChangeCursor(long seq, long id, long issuedAt) {
+
+    // Cursor for a full sync; seq -1 also covers notes written before change tracking existed (seq 0)
+    public static ChangeCursor start(long now) {
+        return new ChangeCursor(-1, 0, now);
+    }
+
+    public String encode() {
+        String raw = "c|" + seq + "|" + id + "|" + issuedAt;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ChangeCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length == 4 && parts[0].equals("c")) {
+                return new ChangeCursor(Long.parseLong(parts[1]), Long.parseLong(parts[2]), Long.parseLong(parts[3]));
+            }
+        } catch (RuntimeException ex) {
+            // fall through to the generic error below
+        }
+        throw new IllegalArgumentException("Invalid cursor");
+    }
+}
@@ -0,0 +1,101 @@
+package com.gauri.noteVault.service;
+
+import com.gauri.noteVault.datasource.RecentWrites;
+import com.gauri.noteVault.datasource.ShardDirectory;
+import com.gauri.noteVault.exception.ServiceOverloadedException;
+import com.gauri.noteVault.repository.UserNoteCounterRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Hands out per-user, strictly increasing change sequence numbers for note writes.
+ * The counter row stays locked until the writing transaction commits, so a user's changes
+ * become visible in sequence order and a sync cursor never skips a change that commits later.
+ */
+@Component
+public class ChangeSequence {
+
+    private final UserNoteCounterRepository counterRepository;
+    private final RecentWrites recentWrites;
+    // Only present when notes are sharded
+    private final ObjectProvider<ShardDirectory> shardDirectory;
+    private final JdbcTemplate jdbcTemplate;
+
+    public ChangeSequence(UserNoteCounterRepository counterRepository, RecentWrites recentWrites,
+                          ObjectProvider<ShardDirectory> shardDirectory, JdbcTemplate jdbcTemplate) {
+        this.counterRepository = counterRepository;
+        this.recentWrites = recentWrites;
+        this.shardDirectory = shardDirectory;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Reserve count consecutive values and return the first of them; noteDelta is the change in the
+    // user's number of notes made by the same writes (created minus deleted)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long reserve(Long userId, int count, long noteDelta) {
+        markRecentWrite(userId);
+        if (counterRepository.incrementChangeSeq(userId, count, noteDelta) == 0) {
+            // This shard's copy of the user was moved away while the request was routed here; retrying reaches the new shard
+            if (counterRepository.findMovedTo(userId).isPresent()) {
+                shardDirectory.ifAvailable(directory -> directory.evict(userId));
+                throw new ServiceOverloadedException("Notes are being moved to another database, please retry", 1);
+            }
+            // Accounts created before change tracking get their row from DatabaseInitializer; this covers the gap.
+            // The note count is left unknown until the next startup counts it.
+            createCounter(userId);
+            if (counterRepository.incrementChangeSeq(userId, count, noteDelta) == 0) {
+                throw new IllegalStateException("No note counter for user ID " + userId);
+            }
+        }
+        return counterRepository.findChangeSeq(userId) - count + 1;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long reserve(Long userId, int count) {
+        return reserve(userId, count, 0);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long next(Long userId, long noteDelta) {
+        return reserve(userId, 1, noteDelta);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long next(Long userId) {
+        return reserve(userId, 1, 0);
+    }
+
+    // Inserted through JDBC so a duplicate key fails only the statement: through the entity manager it would
+    // mark the whole write for rollback. A row committed by a concurrent write is then simply updated; two
+    // first writes still in flight can deadlock on the missing row instead, and the loser is asked to retry.
+    private void createCounter(Long userId) {
+        try {
+            jdbcTemplate.update("INSERT INTO user_note_counters (user_id, change_seq) VALUES (?, 0)", userId);
+        } catch (DuplicateKeyException ex) {
+            // Created by a concurrent write that has committed
+        } catch (PessimisticLockingFailureException ex) {
+            throw new ServiceOverloadedException("Notes are being written concurrently, please retry", 1);
+        }
+    }
+
+    // Every note write passes through here, so this is where the user's reads are pinned to the primary;
+    // the window starts again at commit, when the replicas start replicating the change
+    private void markRecentWrite(Long userId) {
+        recentWrites.record(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recentWrites.record(userId);
+                }
+            });
+        }
+    }
+}
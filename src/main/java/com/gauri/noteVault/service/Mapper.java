@@ -2,9 +2,11 @@ package com.gauri.noteVault.service;
 
 import com.gauri.noteVault.dto.NoteResponseDTO;
 import com.gauri.noteVault.entity.Note;
+import com.gauri.noteVault.repository.NoteSummaryRow;
 import org.springframework.stereotype.Component;
 
 import java.util.Collections;
+import java.util.List;
 
 @Component
 public class Mapper {
@@ -20,7 +22,42 @@ public class Mapper {
                 note.getContent(),
                 note.getTags() != null ? note.getTags() : Collections.emptyList(),
                 note.getCreatedAt(),
-                note.getUpdatedAt()
+                note.getUpdatedAt(),
+                note.getVersion()
+        );
+    }
+
+    // Map a listing row; content is left out because list queries do not select it
+    public static NoteResponseDTO toDto(NoteSummaryRow row, List<String> tags) {
+        if (row == null) {
+            return null;
+        }
+
+        return new NoteResponseDTO(
+                row.id(),
+                row.title(),
+                null,
+                tags != null ? tags : Collections.emptyList(),
+                row.createdAt(),
+                row.updatedAt(),
+                row.version()
+        );
+    }
+
+    // Map a note whose tags were loaded separately, without touching the lazy collection
+    public static NoteResponseDTO toDto(Note note, List<String> tags) {
+        if (note == null) {
+            return null;
+        }
+
+        return new NoteResponseDTO(
+                note.getId(),
+                note.getTitle(),
+                note.getContent(),
+                tags != null ? tags : Collections.emptyList(),
+                note.getCreatedAt(),
+                note.getUpdatedAt(),
+                note.getVersion()
         );
     }
 }
@@ -0,0 +1,65 @@
+package com.gauri.noteVault.service;
+
+import com.gauri.noteVault.repository.NoteSummaryRow;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position in a keyset-paginated note listing.
+ * Clients only ever see the encoded form, so the seek columns can change without breaking them.
+ */
+public record NoteCursor(Order order, LocalDateTime updatedAt, Long id) {
+
+    public enum Order {
+        // Most recently updated first, seeking on (updatedAt, id)
+        UPDATED,
+        // Oldest first, seeking on id
+        ID
+    }
+
+    // Cursor positioned before the first row of the given order
+    public static NoteCursor first(String order) {
+        return new NoteCursor(parseOrder(order), null, null);
+    }
+
+    // Cursor positioned right after the given note
+    public static NoteCursor after(Order order, NoteSummaryRow note) {
+        return new NoteCursor(order, note.updatedAt(), note.id());
+    }
+
+    public boolean isFirst() {
+        return id == null;
+    }
+
+    public String encode() {
+        String raw = order == Order.UPDATED ? "u|" + updatedAt + "|" + id : "i|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static NoteCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length == 3 && parts[0].equals("u")) {
+                return new NoteCursor(Order.UPDATED, LocalDateTime.parse(parts[1]), Long.parseLong(parts[2]));
+            }
+            if (parts.length == 2 && parts[0].equals("i")) {
+                return new NoteCursor(Order.ID, null, Long.parseLong(parts[1]));
+            }
+        } catch (RuntimeException ex) {
+            // fall through to the generic error below
+        }
+        throw new IllegalArgumentException("Invalid cursor");
+    }
+
+    private static Order parseOrder(String order) {
+        if (order == null || order.equalsIgnoreCase("updated")) {
+            return Order.UPDATED;
+        }
+        if (order.equalsIgnoreCase("id")) {
+            return Order.ID;
+        }
+        throw new IllegalArgumentException("Unsupported order: " + order);
+    }
+}
@@ -0,0 +1,66 @@
+package com.gauri.noteVault.service;
+
+import com.gauri.noteVault.cache.BoundedCache;
+import com.gauri.noteVault.cache.CacheStats;
+import com.gauri.noteVault.dto.NoteResponseDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of note DTOs keyed by owner and note id.
+ * Writers invalidate after their transaction commits; a load that raced with such an invalidation
+ * is returned to its caller but never stored, so a stale DTO cannot come back after a write.
+ * Loads inside the user's read-your-writes window read from the primary, so a replica's copy from before
+ * the write is not kept for the whole TTL.
+ * Cached DTOs are shared between requests and must not be modified.
+ */
+@Component
+public class NoteDtoCache {
+
+    private record Key(Long userId, Long noteId) {
+    }
+
+    // Null when disabled with notes.cache.max-size=0
+    private final BoundedCache<Key, NoteResponseDTO> cache;
+
+    public NoteDtoCache(@Value("${notes.cache.max-size:10000}") int maxSize,
+                        @Value("${notes.cache.ttl-ms:600000}") long ttlMs) {
+        this.cache = maxSize > 0 ? new BoundedCache<>(maxSize, Duration.ofMillis(ttlMs)) : null;
+    }
+
+    public NoteResponseDTO get(Long userId, Long noteId, Supplier<NoteResponseDTO> loader) {
+        if (cache == null) {
+            return loader.get();
+        }
+        Key key = new Key(userId, noteId);
+        NoteResponseDTO cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long ticket = cache.ticket(key);
+        NoteResponseDTO loaded = loader.get();
+        cache.putIfUnchanged(key, loaded, ticket);
+        return loaded;
+    }
+
+    // Seed the cache with a freshly committed note
+    public void put(Long userId, NoteResponseDTO dto) {
+        if (cache != null) {
+            Key key = new Key(userId, dto.getId());
+            cache.putIfUnchanged(key, dto, cache.ticket(key));
+        }
+    }
+
+    public void invalidate(Long userId, Long noteId) {
+        if (cache != null) {
+            cache.invalidate(new Key(userId, noteId));
+        }
+    }
+
+    public CacheStats stats() {
+        return cache != null ? cache.stats() : new CacheStats(0, 0, 0, 0);
+    }
+}
@@ -1,19 +1,58 @@
 package com.gauri.noteVault.service;
 
+import com.gauri.noteVault.dto.CursorPageResponse;
+import com.gauri.noteVault.dto.NoteBatchOperation;
+import com.gauri.noteVault.dto.NoteBatchResult;
+import com.gauri.noteVault.dto.NoteChangesResponse;
+import com.gauri.noteVault.dto.NoteImportResult;
+import com.gauri.noteVault.dto.NoteListResponse;
 import com.gauri.noteVault.dto.NoteRequestDTO;
 import com.gauri.noteVault.dto.NoteResponseDTO;
-import org.springframework.data.domain.Page;
+import com.gauri.noteVault.dto.NoteSuggestion;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
 
 public interface NoteService {
 
-    NoteResponseDTO createNote(NoteRequestDTO dto, String username);
+    NoteResponseDTO createNote(NoteRequestDTO dto, Long userId);
+
+    NoteResponseDTO getById(Long id, Long userId);
+
+    // Version only, for conditional requests
+    Long getVersion(Long id, Long userId);
+
+    // expectedVersion null means an unconditional update
+    NoteResponseDTO update(Long id, NoteRequestDTO dto, Long userId, Long expectedVersion);
+
+    void delete(Long id, Long userId);
+
+    // tagMode is "all" (default) or "any"; an empty tag list means no tag filter
+    // withTotal false returns a plain Slice: one extra row is read to tell whether there is a next page
+    Slice<NoteResponseDTO> list(Long userId, String q, List<String> tags, String tagMode,
+                                Pageable pageable, boolean relevance, boolean withTotal);
+
+    // Summary view: only the requested fields (title, tags, createdAt, updatedAt, excerpt), plus id and version
+    NoteListResponse listSummaries(Long userId, String q, List<String> tags, String tagMode, Pageable pageable,
+                                   boolean relevance, boolean withTotal, List<String> fields, Integer excerptLength);
+
+    Map<String, Long> tagCounts(Long userId);
+
+    // Notes whose title has a word starting with prefix, most recently updated first
+    List<NoteSuggestion> suggest(Long userId, String prefix, int limit);
+
+    CursorPageResponse<NoteResponseDTO> listByCursor(Long userId, String cursor, String order, int size);
 
-    NoteResponseDTO getById(Long id, String username);
+    NoteChangesResponse changesSince(Long userId, String since, int limit);
 
-    NoteResponseDTO update(Long id, NoteRequestDTO dto, String username);
+    List<NoteBatchResult> applyBatch(List<NoteBatchOperation> operations, Long userId);
 
-    void delete(Long id, String username);
+    void exportNotes(Long userId, OutputStream out) throws IOException;
 
-    Page<NoteResponseDTO> list(String username, String q, Pageable pageable);
+    NoteImportResult importNotes(Long userId, InputStream in) throws IOException;
 }
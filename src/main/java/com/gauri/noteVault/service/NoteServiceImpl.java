@@ -1,123 +1,932 @@
 package com.gauri.noteVault.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.gauri.noteVault.datasource.ReadRouting;
+import com.gauri.noteVault.datasource.RecentWrites;
+import com.gauri.noteVault.dto.CursorPageResponse;
+import com.gauri.noteVault.dto.NoteBatchOperation;
+import com.gauri.noteVault.dto.NoteBatchResult;
+import com.gauri.noteVault.dto.NoteChangesResponse;
+import com.gauri.noteVault.dto.NoteEvent;
+import com.gauri.noteVault.dto.NoteImportResult;
+import com.gauri.noteVault.dto.NoteListResponse;
 import com.gauri.noteVault.dto.NoteRequestDTO;
 import com.gauri.noteVault.dto.NoteResponseDTO;
+import com.gauri.noteVault.dto.NoteSuggestion;
+import com.gauri.noteVault.dto.NoteSummaryDTO;
 import com.gauri.noteVault.entity.Note;
+import com.gauri.noteVault.entity.NoteTombstone;
 import com.gauri.noteVault.entity.User;
+import com.gauri.noteVault.exception.PreconditionFailedException;
 import com.gauri.noteVault.exception.ResourceNotFoundException;
+import com.gauri.noteVault.repository.NoteExcerptRow;
+import com.gauri.noteVault.repository.NoteExportRow;
 import com.gauri.noteVault.repository.NoteRepository;
+import com.gauri.noteVault.repository.NoteSummaryRow;
+import com.gauri.noteVault.repository.NoteTag;
+import com.gauri.noteVault.repository.NoteTombstoneRepository;
+import com.gauri.noteVault.repository.TagCount;
+import com.gauri.noteVault.repository.UserNoteCounterRepository;
 import com.gauri.noteVault.repository.UserRepository;
+import com.gauri.noteVault.search.NoteSearchDocument;
+import com.gauri.noteVault.search.NoteSearchEngine;
+import com.gauri.noteVault.search.NoteTagIndex;
+import com.gauri.noteVault.search.TitleSuggester;
+import com.gauri.noteVault.stream.NoteEventBus;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.jpa.HibernateHints;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+// Every public method is timed, tagged by method and by exception (none on success)
 @Service
+@Timed("notevault.notes.service")
 public class NoteServiceImpl implements NoteService {
 
     private static final Logger logger = LoggerFactory.getLogger(NoteServiceImpl.class);
 
+    // Notes and their tags in one forward-only pass; rows of the same note are adjacent
+    private static final String EXPORT_QUERY = """
+            SELECT new com.gauri.noteVault.repository.NoteExportRow(n.id, n.title, n.content, n.createdAt, n.updatedAt, n.version, t)
+            FROM Note n LEFT JOIN n.tags t
+            WHERE n.user.id = :userId
+            ORDER BY n.id
+            """;
+    private static final int EXPORT_FLUSH_EVERY = 500;
+    // Per-record errors reported back to the client; the rest are only counted
+    private static final int IMPORT_MAX_REPORTED_ERRORS = 100;
+    private static final int CHANGES_MAX_LIMIT = 1000;
+    private static final int SUGGEST_MAX_LIMIT = 50;
+    private static final int CURSOR_MAX_SIZE = 100;
+    // Optional fields of the summary list view; id and version are always present
+    private static final Set<String> SUMMARY_FIELDS = Set.of("title", "tags", "createdAt", "updatedAt", "excerpt");
+    private static final List<String> DEFAULT_SUMMARY_FIELDS = List.of("title", "tags", "updatedAt");
+    private static final int DEFAULT_EXCERPT_LENGTH = 200;
+
     private final NoteRepository noteRepository;
     private final UserRepository userRepository;
+    private final NoteSearchEngine searchEngine;
+    private final NoteTagIndex tagIndex;
+    private final TitleSuggester titleSuggester;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final int exportFetchSize;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final int importChunkSize;
+    private final NoteDtoCache noteCache;
+    private final ChangeSequence changeSequence;
+    private final NoteTombstoneRepository tombstoneRepository;
+    private final UserNoteCounterRepository counterRepository;
+    private final long tombstoneRetentionMs;
+    private final NoteEventBus eventBus;
+    private final RecentWrites recentWrites;
 
-    public NoteServiceImpl(NoteRepository noteRepository, UserRepository userRepository) {
+    public NoteServiceImpl(NoteRepository noteRepository, UserRepository userRepository,
+                           Optional<NoteSearchEngine> searchEngine, NoteTagIndex tagIndex,
+                           TitleSuggester titleSuggester, EntityManager entityManager,
+                           ObjectMapper objectMapper,
+                           @Value("${notes.export.fetch-size:500}") int exportFetchSize,
+                           Validator validator, PlatformTransactionManager transactionManager,
+                           @Value("${notes.import.chunk-size:500}") int importChunkSize,
+                           NoteDtoCache noteCache, ChangeSequence changeSequence,
+                           NoteTombstoneRepository tombstoneRepository, UserNoteCounterRepository counterRepository,
+                           @Value("${notes.tombstones.retention-ms:2592000000}") long tombstoneRetentionMs,
+                           NoteEventBus eventBus, RecentWrites recentWrites) {
         this.noteRepository = noteRepository;
         this.userRepository = userRepository;
+        this.searchEngine = searchEngine.orElse(null);
+        this.tagIndex = tagIndex;
+        this.titleSuggester = titleSuggester;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.exportFetchSize = exportFetchSize;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.importChunkSize = importChunkSize;
+        this.noteCache = noteCache;
+        this.changeSequence = changeSequence;
+        this.tombstoneRepository = tombstoneRepository;
+        this.counterRepository = counterRepository;
+        this.tombstoneRetentionMs = tombstoneRetentionMs;
+        this.eventBus = eventBus;
+        this.recentWrites = recentWrites;
     }
 
     // Create a new note for a given user
     @Override
-    public NoteResponseDTO createNote(NoteRequestDTO dto, String username) {
-        logger.debug("Creating note for user: {}", username);
-
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> {
-                    logger.warn("User '{}' not found, cannot create note", username);
-                    return new ResourceNotFoundException("User not found");
-                });
+    @Transactional
+    public NoteResponseDTO createNote(NoteRequestDTO dto, Long userId) {
+        logger.debug("Creating note for user ID: {}", userId);
 
         Note note = new Note();
         note.setTitle(dto.getTitle());
         note.setContent(dto.getContent());
         note.setTags(dto.getTags() != null ? dto.getTags() : new ArrayList<>());
-        note.setUser(user);
+        // Only the FK is needed, so use a reference instead of loading the user
+        note.setUser(userRepository.getReferenceById(userId));
+        note.setChangeSeq(changeSequence.next(userId, 1));
 
         Note saved = noteRepository.save(note);
-        logger.info("Note created successfully for user: {}, Note ID: {}", username, saved.getId());
+        NoteResponseDTO response = Mapper.toDto(saved);
+        afterCommit(() -> noteCache.put(userId, response));
+        afterCommit(() -> tagIndex.put(userId, saved.getId(), response.getTags()));
+        afterCommit(() -> titleSuggester.put(userId, saved.getId(), saved.getTitle(), saved.getUpdatedAt()));
+        if (searchEngine != null) {
+            afterCommit(() -> searchEngine.index(userId, saved.getId(), saved.getTitle(), saved.getContent()));
+        }
+        NoteEvent event = NoteEvent.written(NoteEvent.CREATED, saved.getChangeSeq(), response);
+        afterCommit(() -> eventBus.publish(userId, List.of(event)));
+        logger.info("Note created successfully for user ID: {}, Note ID: {}", userId, saved.getId());
 
-        return Mapper.toDto(saved);
+        return response;
     }
 
     // Retrieve a note by ID for a specific user
+    // Not transactional: cache hits must not open a transaction, and the loading query runs in the repository's own
+    // Misses go to a replica like other reads, except within the user's read-your-writes window, where a
+    // replica's copy may still predate the write and would be cached for the whole TTL
     @Override
-    public NoteResponseDTO getById(Long id, String username) {
-        logger.debug("Fetching note ID {} for user: {}", id, username);
+    public NoteResponseDTO getById(Long id, Long userId) {
+        logger.debug("Fetching note ID {} for user ID: {}", id, userId);
 
-        Note note = noteRepository.findById(id)
-                .filter(n -> n.getUser().getUsername().equals(username))
+        NoteResponseDTO note = noteCache.get(userId, id, () -> (recentWrites.isRecent(userId)
+                        ? ReadRouting.onPrimary(() -> noteRepository.findByIdAndUserId(id, userId))
+                        : noteRepository.findByIdAndUserId(id, userId))
+                .map(Mapper::toDto)
                 .orElseThrow(() -> {
-                    logger.warn("Note ID {} not found for user: {}", id, username);
+                    logger.warn("Note ID {} not found for user ID: {}", id, userId);
                     return new ResourceNotFoundException("Note not found with id " + id);
-                });
+                }));
+
+        logger.info("Note ID {} retrieved successfully for user ID: {}", id, userId);
+        return note;
+    }
 
-        logger.info("Note ID {} retrieved successfully for user: {}", id, username);
-        return Mapper.toDto(note);
+    // Current version of a note, read without loading content or tags
+    @Override
+    @Transactional(readOnly = true)
+    public Long getVersion(Long id, Long userId) {
+        return noteRepository.findVersionByIdAndUserId(id, userId)
+                .orElseThrow(() -> {
+                    logger.warn("Note ID {} not found for user ID: {}", id, userId);
+                    return new ResourceNotFoundException("Note not found with id " + id);
+                });
     }
 
-    // Update an existing note
+    // Update an existing note, optionally only if it is still at the version the client last saw
     @Override
-    public NoteResponseDTO update(Long id, NoteRequestDTO dto, String username) {
-        logger.debug("Updating note ID {} for user: {}", id, username);
+    @Transactional
+    public NoteResponseDTO update(Long id, NoteRequestDTO dto, Long userId, Long expectedVersion) {
+        logger.debug("Updating note ID {} for user ID: {}", id, userId);
 
-        Note note = noteRepository.findById(id)
-                .filter(n -> n.getUser().getUsername().equals(username))
+        // Ownership is checked in the same statement that loads the note and its tags
+        Note note = noteRepository.findByIdAndUserId(id, userId)
                 .orElseThrow(() -> {
-                    logger.warn("Note ID {} not found for user: {}", id, username);
+                    logger.warn("Note ID {} not found for user ID: {}", id, userId);
                     return new ResourceNotFoundException("Note not found with id " + id);
                 });
+        if (expectedVersion != null && !expectedVersion.equals(note.getVersion())) {
+            logger.warn("Note ID {} is at version {}, client expected {}", id, note.getVersion(), expectedVersion);
+            throw new PreconditionFailedException("Note " + id + " has been modified");
+        }
 
         note.setTitle(dto.getTitle());
         note.setContent(dto.getContent());
         note.setTags(dto.getTags() != null ? dto.getTags() : new ArrayList<>());
+        note.setChangeSeq(changeSequence.next(userId));
 
-        Note updated = noteRepository.save(note);
-        logger.info("Note ID {} updated successfully for user: {}", id, username);
+        // Flush now so @PreUpdate has refreshed updatedAt before the response is built
+        Note updated;
+        try {
+            updated = noteRepository.saveAndFlush(note);
+        } catch (ObjectOptimisticLockingFailureException ex) {
+            // Another writer committed between our read and our versioned UPDATE
+            if (expectedVersion != null) {
+                throw new PreconditionFailedException("Note " + id + " has been modified");
+            }
+            throw ex;
+        }
+        NoteResponseDTO response = Mapper.toDto(updated);
+        afterCommit(() -> noteCache.invalidate(userId, id));
+        afterCommit(() -> tagIndex.put(userId, id, response.getTags()));
+        afterCommit(() -> titleSuggester.put(userId, id, updated.getTitle(), updated.getUpdatedAt()));
+        if (searchEngine != null) {
+            afterCommit(() -> searchEngine.index(userId, updated.getId(), updated.getTitle(), updated.getContent()));
+        }
+        NoteEvent event = NoteEvent.written(NoteEvent.UPDATED, updated.getChangeSeq(), response);
+        afterCommit(() -> eventBus.publish(userId, List.of(event)));
+        logger.info("Note ID {} updated successfully for user ID: {}", id, userId);
 
-        return Mapper.toDto(updated);
+        return response;
     }
 
     // Delete a note by ID for a specific user
     @Override
-    public void delete(Long id, String username) {
-        logger.debug("Deleting note ID {} for user: {}", id, username);
+    @Transactional
+    public void delete(Long id, Long userId) {
+        logger.debug("Deleting note ID {} for user ID: {}", id, userId);
 
-        Note note = noteRepository.findById(id)
-                .filter(n -> n.getUser().getUsername().equals(username))
-                .orElseThrow(() -> {
-                    logger.warn("Note ID {} not found for user: {}", id, username);
-                    return new ResourceNotFoundException("Note not found with id " + id);
-                });
+        // Rolled back together with the deletes if the note turns out not to exist
+        long changeSeq = changeSequence.next(userId, -1);
+
+        // Conditional deletes: nothing is removed unless the note belongs to the user
+        noteRepository.deleteTagsByIdAndUserId(id, userId);
+        if (noteRepository.deleteByIdAndUserId(id, userId) == 0) {
+            logger.warn("Note ID {} not found for user ID: {}", id, userId);
+            throw new ResourceNotFoundException("Note not found with id " + id);
+        }
+        tombstoneRepository.save(new NoteTombstone(id, userId, changeSeq, LocalDateTime.now()));
+
+        afterCommit(() -> noteCache.invalidate(userId, id));
+        afterCommit(() -> tagIndex.remove(userId, id));
+        afterCommit(() -> titleSuggester.remove(userId, id));
+        if (searchEngine != null) {
+            afterCommit(() -> searchEngine.remove(userId, id));
+        }
+        afterCommit(() -> eventBus.publish(userId, List.of(NoteEvent.deleted(id, changeSeq))));
+        logger.info("Note ID {} deleted successfully for user ID: {}", id, userId);
+    }
+
+    // Apply create/update/delete operations in one transaction; inserts and tag rows go out as JDBC batches
+    @Override
+    @Transactional
+    public List<NoteBatchResult> applyBatch(List<NoteBatchOperation> operations, Long userId) {
+        logger.debug("Applying batch of {} operations for user ID: {}", operations.size(), userId);
+
+        // Every note referenced by an update or delete, loaded with its tags in one owner-scoped query
+        Set<Long> ids = operations.stream()
+                .map(NoteBatchOperation::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Note> owned = new HashMap<>();
+        if (!ids.isEmpty()) {
+            noteRepository.findAllWithTagsByIdInAndUserId(ids, userId).forEach(n -> owned.put(n.getId(), n));
+        }
+        User owner = userRepository.getReferenceById(userId);
+
+        List<NoteBatchResult> results = new ArrayList<>(operations.size());
+        Map<Integer, Note> written = new HashMap<>();
+        for (int i = 0; i < operations.size(); i++) {
+            NoteBatchOperation operation = operations.get(i);
+            NoteBatchResult result = new NoteBatchResult(i, operation.getOp(), operation.getId(), 200, null, null);
+            results.add(result);
+
+            boolean needsId = operation.getOp() != NoteBatchOperation.Type.CREATE;
+            boolean needsNote = operation.getOp() != NoteBatchOperation.Type.DELETE;
+            if ((needsId && operation.getId() == null) || (needsNote && operation.getNote() == null)) {
+                result.setStatus(400);
+                result.setError(needsId && operation.getId() == null ? "id is required" : "note is required");
+                continue;
+            }
+
+            Note note = needsId ? owned.get(operation.getId()) : null;
+            if (needsId && note == null) {
+                result.setStatus(404);
+                result.setError("Note not found with id " + operation.getId());
+                continue;
+            }
+
+            switch (operation.getOp()) {
+                case CREATE -> {
+                    note = new Note();
+                    note.setUser(owner);
+                    applyRequest(note, operation.getNote());
+                    // Sequence ids are assigned here; the INSERT itself is deferred to the batched flush
+                    noteRepository.save(note);
+                    result.setStatus(201);
+                    result.setId(note.getId());
+                    written.put(i, note);
+                }
+                case UPDATE -> {
+                    applyRequest(note, operation.getNote());
+                    written.put(i, note);
+                }
+                case DELETE -> {
+                    noteRepository.delete(note);
+                    owned.remove(note.getId());
+                    result.setStatus(204);
+                }
+            }
+        }
+
+        // One counter round trip for the whole batch; sequence numbers follow operation order
+        long changes = results.stream().filter(r -> r.getStatus() < 300).count();
+        long firstChangeSeq = 0;
+        if (changes > 0) {
+            long created = results.stream().filter(r -> r.getStatus() == 201).count();
+            long deleted = results.stream().filter(r -> r.getStatus() == 204).count();
+            firstChangeSeq = changeSequence.reserve(userId, (int) changes, created - deleted);
+            long changeSeq = firstChangeSeq;
+            LocalDateTime now = LocalDateTime.now();
+            for (NoteBatchResult result : results) {
+                Note note = written.get(result.getIndex());
+                if (note != null) {
+                    note.setChangeSeq(changeSeq++);
+                } else if (result.getStatus() == 204) {
+                    tombstoneRepository.save(new NoteTombstone(result.getId(), userId, changeSeq++, now));
+                }
+            }
+        }
+
+        noteRepository.flush();
+        written.forEach((index, note) -> results.get(index).setNote(Mapper.toDto(note)));
+
+        List<NoteBatchResult> applied = results.stream().filter(r -> r.getStatus() < 300).toList();
+        afterCommit(() -> applied.forEach(r -> noteCache.invalidate(userId, r.getId())));
+        afterCommit(() -> applied.forEach(r -> {
+            if (r.getNote() != null) {
+                tagIndex.put(userId, r.getId(), r.getNote().getTags());
+                titleSuggester.put(userId, r.getId(), r.getNote().getTitle(), r.getNote().getUpdatedAt());
+            } else {
+                tagIndex.remove(userId, r.getId());
+                titleSuggester.remove(userId, r.getId());
+            }
+        }));
+        if (searchEngine != null) {
+            afterCommit(() -> applied.forEach(r -> {
+                if (r.getNote() != null) {
+                    searchEngine.index(userId, r.getId(), r.getNote().getTitle(), r.getNote().getContent());
+                } else {
+                    searchEngine.remove(userId, r.getId());
+                }
+            }));
+        }
+        // Applied operations hold consecutive sequence numbers in result order
+        List<NoteEvent> events = new ArrayList<>(applied.size());
+        for (int k = 0; k < applied.size(); k++) {
+            NoteBatchResult r = applied.get(k);
+            long changeSeq = firstChangeSeq + k;
+            events.add(switch (r.getStatus()) {
+                case 201 -> NoteEvent.written(NoteEvent.CREATED, changeSeq, r.getNote());
+                case 204 -> NoteEvent.deleted(r.getId(), changeSeq);
+                default -> NoteEvent.written(NoteEvent.UPDATED, changeSeq, r.getNote());
+            });
+        }
+        afterCommit(() -> eventBus.publish(userId, events));
+        logger.info("Batch of {} operations applied for user ID: {}", operations.size(), userId);
+        return results;
+    }
+
+    // Stream every note of the user as NDJSON; memory use does not grow with the number of notes
+    @Override
+    @Transactional(readOnly = true)
+    public void exportNotes(Long userId, OutputStream out) throws IOException {
+        logger.debug("Exporting notes for user ID: {}", userId);
+
+        // Scalar rows never enter the persistence context, so nothing accumulates while streaming
+        ObjectWriter writer = objectMapper.writerFor(NoteResponseDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long exported = 0;
+        try (Stream<NoteExportRow> rows = entityManager.createQuery(EXPORT_QUERY, NoteExportRow.class)
+                .setParameter("userId", userId)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, exportFetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(new SerializedString("\n"));
+
+            NoteResponseDTO current = null;
+            for (NoteExportRow row : (Iterable<NoteExportRow>) rows::iterator) {
+                if (current == null || !current.getId().equals(row.id())) {
+                    if (current != null) {
+                        writer.writeValue(generator, current);
+                        if (++exported % EXPORT_FLUSH_EVERY == 0) {
+                            generator.flush();
+                        }
+                    }
+                    current = new NoteResponseDTO(row.id(), row.title(), row.content(), new ArrayList<>(),
+                            row.createdAt(), row.updatedAt(), row.version());
+                }
+                if (row.tag() != null) {
+                    current.getTags().add(row.tag());
+                }
+            }
+            if (current != null) {
+                writer.writeValue(generator, current);
+                exported++;
+                generator.writeRaw('\n');
+            }
+        }
+        logger.info("Exported {} notes for user ID: {}", exported, userId);
+    }
+
+    // Import NDJSON or a JSON array of notes, parsed incrementally and committed in chunks;
+    // progress is only logged, the caller gets the summary at the end
+    @Override
+    public NoteImportResult importNotes(Long userId, InputStream in) throws IOException {
+        logger.debug("Importing notes for user ID: {}", userId);
+
+        NoteImportResult result = new NoteImportResult();
+        List<NoteRequestDTO> chunk = new ArrayList<>(importChunkSize);
+        long record = 0;
+        // Reading only as fast as chunks commit keeps the upload under TCP backpressure instead of in memory
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+
+            while (token != null && !(array && token == JsonToken.END_ARRAY)) {
+                record++;
+                int line = parser.currentLocation().getLineNr();
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    recordImportError(result, record, line, "Expected a JSON object");
+                } else {
+                    // Reading a tree first keeps a bad field from desynchronising the parser
+                    JsonNode node = objectMapper.readTree(parser);
+                    String error = null;
+                    NoteRequestDTO dto = null;
+                    try {
+                        dto = objectMapper.treeToValue(node, NoteRequestDTO.class);
+                        error = validationError(dto);
+                    } catch (JsonProcessingException ex) {
+                        error = ex.getOriginalMessage();
+                    }
+
+                    if (error != null) {
+                        recordImportError(result, record, line, error);
+                    } else {
+                        chunk.add(dto);
+                        if (chunk.size() >= importChunkSize) {
+                            result.setImported(result.getImported() + persistImportChunk(chunk, userId));
+                            chunk.clear();
+                            logger.info("Import progress for user ID: {} - {} notes imported, {} failed",
+                                    userId, result.getImported(), result.getFailed());
+                        }
+                    }
+                }
+                token = parser.nextToken();
+            }
+        } catch (JsonProcessingException ex) {
+            // Malformed JSON: the stream cannot be resynchronised, so stop after what was committed
+            result.setAborted(true);
+            recordImportError(result, record, ex.getLocation() != null ? ex.getLocation().getLineNr() : -1,
+                    ex.getOriginalMessage());
+        }
+
+        if (!chunk.isEmpty()) {
+            result.setImported(result.getImported() + persistImportChunk(chunk, userId));
+        }
+        logger.info("Import finished for user ID: {} - {} notes imported, {} failed, aborted: {}",
+                userId, result.getImported(), result.getFailed(), result.isAborted());
+        return result;
+    }
+
+    // Notes written and ids deleted after the cursor, in change order
+    @Override
+    @Transactional(readOnly = true)
+    public NoteChangesResponse changesSince(Long userId, String since, int limit) {
+        if (limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be at least 1");
+        }
+        limit = Math.min(limit, CHANGES_MAX_LIMIT);
+
+        long now = System.currentTimeMillis();
+        ChangeCursor from;
+        try {
+            from = since == null || since.isEmpty() ? ChangeCursor.start(now) : ChangeCursor.decode(since);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+        // Tombstones the client still needs may have been compacted away
+        if (from.issuedAt() < now - tombstoneRetentionMs) {
+            throw new ResponseStatusException(HttpStatus.GONE, "Cursor expired, a full sync is required");
+        }
+        logger.debug("Fetching changes after sequence {} for user ID: {}", from.seq(), userId);
+
+        PageRequest window = PageRequest.of(0, limit + 1);
+        List<Note> notes = noteRepository.findChangedSince(userId, from.seq(), from.id(), window);
+        List<NoteTombstone> tombstones = tombstoneRepository.findChangedSince(userId, from.seq(), window);
+
+        // Merge both streams by sequence and stop at the limit
+        List<Note> changed = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        long lastSeq = from.seq();
+        long lastId = from.id();
+        int n = 0;
+        int t = 0;
+        while (changed.size() + deleted.size() < limit && (n < notes.size() || t < tombstones.size())) {
+            boolean takeNote = t >= tombstones.size()
+                    || (n < notes.size() && notes.get(n).getChangeSeq() < tombstones.get(t).getChangeSeq());
+            if (takeNote) {
+                Note note = notes.get(n++);
+                changed.add(note);
+                lastSeq = note.getChangeSeq();
+                lastId = note.getId();
+            } else {
+                NoteTombstone tombstone = tombstones.get(t++);
+                deleted.add(tombstone.getNoteId());
+                lastSeq = tombstone.getChangeSeq();
+                lastId = tombstone.getNoteId();
+            }
+        }
+        boolean hasMore = n < notes.size() || t < tombstones.size();
+
+        // Only a fully caught-up client may move its retention clock forward
+        ChangeCursor next = new ChangeCursor(lastSeq, lastId, hasMore ? from.issuedAt() : now);
+        logger.info("Returning {} changed and {} deleted notes for user ID: {}", changed.size(), deleted.size(), userId);
+        return new NoteChangesResponse(toDtos(changed), deleted, next.encode(), hasMore);
+    }
+
+    // List notes for a user with optional search, tag filter and pagination
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<NoteResponseDTO> list(Long userId, String q, List<String> tags, String tagMode,
+                                       Pageable pageable, boolean relevance, boolean withTotal) {
+        logger.debug("Listing notes for user ID: {}, search query: '{}', tags: {} ({}), page: {}, size: {}",
+                userId, q, tags, tagMode, pageable.getPageNumber(), pageable.getPageSize());
+
+        Slice<NoteSummaryRow> page = findPage(userId, q, tags, tagMode, pageable, relevance, withTotal);
+        List<NoteResponseDTO> notes = toSummaryDtos(page.getContent());
+
+        logger.info("Notes listed successfully for user ID: {}, {} notes on page", userId, notes.size());
+        return page instanceof Page<NoteSummaryRow> counted
+                ? new PageImpl<>(notes, pageable, counted.getTotalElements())
+                : new SliceImpl<>(notes, pageable, page.hasNext());
+    }
+
+    // Summary list view; tags and excerpts cost one extra query each and only when requested
+    @Override
+    @Transactional(readOnly = true)
+    public NoteListResponse listSummaries(Long userId, String q, List<String> tags, String tagMode, Pageable pageable,
+                                          boolean relevance, boolean withTotal, List<String> fields, Integer excerptLength) {
+        logger.debug("Listing note summaries for user ID: {}, fields: {}, excerpt: {}", userId, fields, excerptLength);
+
+        Set<String> selected = new HashSet<>();
+        for (String field : fields == null || fields.isEmpty() ? DEFAULT_SUMMARY_FIELDS : fields) {
+            String name = field.trim();
+            if (name.equals("id") || name.equals("version") || name.isEmpty()) {
+                continue;
+            }
+            if (!SUMMARY_FIELDS.contains(name)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown field: " + name);
+            }
+            selected.add(name);
+        }
+        if (excerptLength != null) {
+            if (excerptLength < 1 || excerptLength > Note.EXCERPT_LENGTH) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "excerpt must be between 1 and " + Note.EXCERPT_LENGTH);
+            }
+            selected.add("excerpt");
+        }
+        int excerptChars = excerptLength != null ? excerptLength : DEFAULT_EXCERPT_LENGTH;
+
+        Slice<NoteSummaryRow> page = findPage(userId, q, tags, tagMode, pageable, relevance, withTotal);
+        List<Long> ids = page.getContent().stream().map(NoteSummaryRow::id).toList();
+        Map<Long, List<String>> tagsByNote = selected.contains("tags") ? tagsOf(ids) : Map.of();
+        Map<Long, String> excerpts = new HashMap<>();
+        if (selected.contains("excerpt") && !ids.isEmpty()) {
+            for (NoteExcerptRow row : noteRepository.findExcerptsByNoteIds(ids)) {
+                excerpts.put(row.id(), Note.excerptOf(row.excerpt(), excerptChars));
+            }
+        }
 
-        noteRepository.delete(note);
-        logger.info("Note ID {} deleted successfully for user: {}", id, username);
+        List<NoteSummaryDTO> items = page.getContent().stream()
+                .map(row -> new NoteSummaryDTO(
+                        row.id(),
+                        selected.contains("title") ? row.title() : null,
+                        selected.contains("tags") ? tagsByNote.getOrDefault(row.id(), List.of()) : null,
+                        selected.contains("createdAt") ? row.createdAt() : null,
+                        selected.contains("updatedAt") ? row.updatedAt() : null,
+                        row.version(),
+                        selected.contains("excerpt") ? excerpts.getOrDefault(row.id(), "") : null))
+                .toList();
+        Long total = page instanceof Page<NoteSummaryRow> counted ? counted.getTotalElements() : null;
+        return new NoteListResponse(items, page.getNumber(), page.getSize(), total, page.hasNext());
     }
 
-    // List notes for a user with optional search and pagination
+    // One page of listing rows: plain, searched, tag-filtered or both. The result is a Page when withTotal
+    // is set; the plain listing takes its total from the note counter instead of a COUNT query.
+    // Search and tag hits are resolved in full to be paged, so their totals cost nothing extra.
+    private Slice<NoteSummaryRow> findPage(Long userId, String q, List<String> tags, String tagMode,
+                                           Pageable pageable, boolean relevance, boolean withTotal) {
+        List<String> tagFilter = tags == null ? List.of() : tags.stream()
+                .map(String::trim)
+                .filter(tag -> !tag.isEmpty())
+                .distinct()
+                .toList();
+        boolean matchAll;
+        if (tagMode == null || tagMode.equalsIgnoreCase("all")) {
+            matchAll = true;
+        } else if (tagMode.equalsIgnoreCase("any")) {
+            matchAll = false;
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported tag mode: " + tagMode);
+        }
+        boolean search = q != null && !q.isBlank();
+
+        Slice<NoteSummaryRow> page;
+        if (!tagFilter.isEmpty()) {
+            Page<Long> hits = search
+                    ? pageOf(retainTagged(userId, searchAll(userId, q, relevance), tagFilter, matchAll), pageable)
+                    : matchTags(userId, tagFilter, matchAll, pageable);
+            page = loadHits(userId, hits);
+        } else if (!search) {
+            Slice<NoteSummaryRow> slice = noteRepository.findSummariesByUserId(userId, pageable);
+            page = withTotal ? new PageImpl<>(slice.getContent(), pageable, noteCount(userId)) : slice;
+        } else if (searchEngine != null && searchEngine.isReady()) {
+            page = loadHits(userId, searchEngine.search(userId, q, pageable, relevance));
+        } else {
+            page = loadHits(userId, pageOf(scanSearch(userId, q), pageable));
+        }
+        if (!withTotal && page instanceof Page) {
+            page = new SliceImpl<>(page.getContent(), pageable, page.hasNext());
+        }
+        return page;
+    }
+
+    private long noteCount(Long userId) {
+        return counterRepository.findNoteCount(userId).orElseGet(() -> noteRepository.countByUserId(userId));
+    }
+
+    // Title autocomplete; not transactional, so a connection is only used while a cold user's titles load
     @Override
-    public Page<NoteResponseDTO> list(String username, String q, Pageable pageable) {
-        logger.debug("Listing notes for user: {}, search query: '{}', page: {}, size: {}", username, q, pageable.getPageNumber(), pageable.getPageSize());
+    public List<NoteSuggestion> suggest(Long userId, String prefix, int limit) {
+        if (limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be at least 1");
+        }
+        return titleSuggester.suggest(userId, prefix, Math.min(limit, SUGGEST_MAX_LIMIT));
+    }
+
+    // Number of the user's notes per tag, most used first
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Long> tagCounts(Long userId) {
+        if (tagIndex.isReady()) {
+            return tagIndex.counts(userId);
+        }
 
-        Page<Note> page;
-        if (q == null || q.isBlank()) {
-            page = noteRepository.findByUserUsername(username, pageable);
+        Map<String, Long> counts = new LinkedHashMap<>();
+        noteRepository.countTagsByUserId(userId).stream()
+                .sorted(Comparator.comparing(TagCount::count).reversed().thenComparing(TagCount::tag))
+                .forEach(count -> counts.put(count.tag(), count.count()));
+        return counts;
+    }
+
+    // List notes with keyset pagination: no OFFSET scan and no COUNT query
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<NoteResponseDTO> listByCursor(Long userId, String cursor, String order, int size) {
+        logger.debug("Listing notes by cursor for user ID: {}, order: {}, size: {}", userId, order, size);
+
+        if (size < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Size must be at least 1");
+        }
+        size = Math.min(size, CURSOR_MAX_SIZE);
+
+        NoteCursor position;
+        try {
+            position = cursor == null || cursor.isBlank() ? NoteCursor.first(order) : NoteCursor.decode(cursor);
+        } catch (IllegalArgumentException ex) {
+            logger.warn("Rejected cursor listing for user ID: {} - {}", userId, ex.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+
+        // Fetch one extra row to learn whether another slice follows
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<NoteSummaryRow> notes;
+        if (position.order() == NoteCursor.Order.ID) {
+            notes = noteRepository.findNextById(userId, position.isFirst() ? 0L : position.id(), limit);
+        } else if (position.isFirst()) {
+            notes = noteRepository.findFirstByUpdated(userId, limit);
         } else {
-            page = noteRepository.searchByUserAndQuery(username, q, pageable);
+            notes = noteRepository.findNextByUpdated(userId, position.updatedAt(), position.id(), limit);
+        }
+
+        boolean hasNext = notes.size() > size;
+        if (hasNext) {
+            notes = notes.subList(0, size);
         }
+        String next = hasNext ? NoteCursor.after(position.order(), notes.get(notes.size() - 1)).encode() : null;
 
-        logger.info("Notes listed successfully for user: {}, total notes: {}", username, page.getTotalElements());
-        return page.map(Mapper::toDto);
+        logger.info("Notes listed by cursor for user ID: {}, returned: {}, hasNext: {}", userId, notes.size(), hasNext);
+        return new CursorPageResponse<>(toSummaryDtos(notes), next, hasNext);
+    }
+
+    // Load only the notes on the requested page of search hits, keeping the hit order
+    private Page<NoteSummaryRow> loadHits(Long userId, Page<Long> hits) {
+        if (hits.getContent().isEmpty()) {
+            return new PageImpl<>(List.of(), hits.getPageable(), hits.getTotalElements());
+        }
+
+        Map<Long, NoteSummaryRow> byId = noteRepository.findSummariesByIdInAndUserId(hits.getContent(), userId).stream()
+                .collect(Collectors.toMap(NoteSummaryRow::id, Function.identity()));
+        List<NoteSummaryRow> notes = hits.getContent().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(notes, hits.getPageable(), hits.getTotalElements());
+    }
+
+    // Fallback while the index is unavailable: content is compressed, so match the decompressed text here
+    // rather than with LIKE in the database; like the old LIKE query this reads every note of the user
+    private List<Long> scanSearch(Long userId, String q) {
+        String needle = q.toLowerCase(Locale.ROOT);
+        List<Long> matches = new ArrayList<>();
+        try (Stream<NoteSearchDocument> documents = noteRepository.streamSearchDocumentsByUserId(userId)) {
+            documents.filter(doc -> containsIgnoreCase(doc.title(), needle) || containsIgnoreCase(doc.content(), needle))
+                    .forEach(doc -> matches.add(doc.id()));
+        }
+        return matches;
+    }
+
+    // Every search hit in result order, for combining with a tag filter
+    private List<Long> searchAll(Long userId, String q, boolean relevance) {
+        if (searchEngine != null && searchEngine.isReady()) {
+            return searchEngine.search(userId, q, PageRequest.of(0, Integer.MAX_VALUE), relevance).getContent();
+        }
+        return scanSearch(userId, q);
+    }
+
+    // Notes carrying the tags, from the bitmap index or with SQL while it is being built
+    private Page<Long> matchTags(Long userId, List<String> tags, boolean matchAll, Pageable pageable) {
+        if (tagIndex.isReady()) {
+            return tagIndex.match(userId, tags, matchAll, pageable);
+        }
+        return pageOf(matchAll
+                ? noteRepository.findIdsWithAllTags(userId, tags, tags.size())
+                : noteRepository.findIdsWithAnyTag(userId, tags), pageable);
+    }
+
+    private List<Long> retainTagged(Long userId, List<Long> ids, List<String> tags, boolean matchAll) {
+        if (tagIndex.isReady()) {
+            return tagIndex.retainMatching(userId, ids, tags, matchAll);
+        }
+        Set<Long> tagged = new HashSet<>(matchAll
+                ? noteRepository.findIdsWithAllTags(userId, tags, tags.size())
+                : noteRepository.findIdsWithAnyTag(userId, tags));
+        return ids.stream().filter(tagged::contains).toList();
+    }
+
+    private static Page<Long> pageOf(List<Long> ids, Pageable pageable) {
+        int from = (int) Math.min(pageable.getOffset(), ids.size());
+        int to = Math.min(from + pageable.getPageSize(), ids.size());
+        return new PageImpl<>(ids.subList(from, to), pageable, ids.size());
+    }
+
+    private static boolean containsIgnoreCase(String text, String lowerCaseNeedle) {
+        return text != null && text.toLowerCase(Locale.ROOT).contains(lowerCaseNeedle);
+    }
+
+    // One transaction per chunk; inserts go out as JDBC batches and the persistence context is cleared afterwards
+    private int persistImportChunk(List<NoteRequestDTO> chunk, Long userId) {
+        List<Note> saved = transactionTemplate.execute(status -> {
+            User owner = userRepository.getReferenceById(userId);
+            long changeSeq = changeSequence.reserve(userId, chunk.size(), chunk.size());
+            List<Note> notes = new ArrayList<>(chunk.size());
+            for (NoteRequestDTO dto : chunk) {
+                Note note = new Note();
+                note.setUser(owner);
+                note.setChangeSeq(changeSeq++);
+                applyRequest(note, dto);
+                notes.add(note);
+            }
+            noteRepository.saveAll(notes);
+            noteRepository.flush();
+            entityManager.clear();
+            return notes;
+        });
+
+        if (saved != null) {
+            saved.forEach(note -> {
+                tagIndex.put(userId, note.getId(), note.getTags());
+                titleSuggester.put(userId, note.getId(), note.getTitle(), note.getUpdatedAt());
+            });
+            eventBus.publish(userId, saved.stream()
+                    .map(note -> NoteEvent.written(NoteEvent.CREATED, note.getChangeSeq(), Mapper.toDto(note)))
+                    .toList());
+        }
+        if (searchEngine != null && saved != null) {
+            saved.forEach(note -> searchEngine.index(userId, note.getId(), note.getTitle(), note.getContent()));
+        }
+        return saved != null ? saved.size() : 0;
+    }
+
+    private String validationError(NoteRequestDTO dto) {
+        Set<ConstraintViolation<NoteRequestDTO>> violations = validator.validate(dto);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private static void recordImportError(NoteImportResult result, long record, int line, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < IMPORT_MAX_REPORTED_ERRORS) {
+            result.getErrors().add(new NoteImportResult.Error(record, line, message));
+        }
+    }
+
+    private static void applyRequest(Note note, NoteRequestDTO dto) {
+        note.setTitle(dto.getTitle());
+        note.setContent(dto.getContent());
+        note.setTags(dto.getTags() != null ? dto.getTags() : new ArrayList<>());
+    }
+
+    // Map a page of notes to DTOs, loading the tags of all of them with one query
+    private List<NoteResponseDTO> toDtos(List<Note> notes) {
+        if (notes.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> ids = notes.stream().map(Note::getId).toList();
+        Map<Long, List<String>> tagsByNote = new HashMap<>();
+        for (NoteTag tag : noteRepository.findTagsByNoteIds(ids)) {
+            tagsByNote.computeIfAbsent(tag.noteId(), k -> new ArrayList<>()).add(tag.tag());
+        }
+        return notes.stream()
+                .map(note -> Mapper.toDto(note, tagsByNote.get(note.getId())))
+                .toList();
+    }
+
+    // Same as toDtos for listing rows, which carry no content
+    private List<NoteResponseDTO> toSummaryDtos(List<NoteSummaryRow> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, List<String>> tagsByNote = tagsOf(rows.stream().map(NoteSummaryRow::id).toList());
+        return rows.stream()
+                .map(row -> Mapper.toDto(row, tagsByNote.get(row.id())))
+                .toList();
+    }
+
+    // Tags of a batch of notes in one query
+    private Map<Long, List<String>> tagsOf(List<Long> ids) {
+        Map<Long, List<String>> tagsByNote = new HashMap<>();
+        if (ids.isEmpty()) {
+            return tagsByNote;
+        }
+        for (NoteTag tag : noteRepository.findTagsByNoteIds(ids)) {
+            tagsByNote.computeIfAbsent(tag.noteId(), k -> new ArrayList<>()).add(tag.tag());
+        }
+        return tagsByNote;
+    }
+
+    // Run an action once the surrounding transaction has committed, so in-memory state never runs ahead of the database
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 }
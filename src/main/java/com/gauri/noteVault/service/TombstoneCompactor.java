@@ -0,0 +1,43 @@
+package com.gauri.noteVault.service;
+
+import com.gauri.noteVault.datasource.Shards;
+import com.gauri.noteVault.repository.NoteTombstoneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Drops tombstones older than the retention window; change cursors older than that window are rejected
+@Component
+public class TombstoneCompactor {
+
+    private static final Logger logger = LoggerFactory.getLogger(TombstoneCompactor.class);
+
+    private final NoteTombstoneRepository tombstoneRepository;
+    private final Shards shards;
+    private final long retentionMs;
+
+    public TombstoneCompactor(NoteTombstoneRepository tombstoneRepository, Shards shards,
+                              @Value("${notes.tombstones.retention-ms:2592000000}") long retentionMs) {
+        this.tombstoneRepository = tombstoneRepository;
+        this.shards = shards;
+        this.retentionMs = retentionMs;
+    }
+
+    @Scheduled(fixedDelayString = "${notes.tombstones.compaction-interval-ms:3600000}",
+            initialDelayString = "${notes.tombstones.compaction-interval-ms:3600000}")
+    public void compact() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(retentionMs));
+        // One delete per shard, each in its own transaction
+        shards.forEach(shard -> {
+            int removed = tombstoneRepository.deleteOlderThan(cutoff);
+            if (removed > 0) {
+                logger.info("Compacted {} note tombstones on {} deleted before {}", removed, shard, cutoff);
+            }
+        });
+    }
+}
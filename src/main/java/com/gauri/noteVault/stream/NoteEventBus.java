@@ -0,0 +1,149 @@
+package com.gauri.noteVault.stream;
+
+import com.gauri.noteVault.dto.NoteEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * In-process fan-out of committed note changes to the user's open streams, with a bounded replay
+ * buffer per user so a reconnecting client can resume from the last change sequence it saw.
+ * Events only reach listeners on this instance; a client whose position is older than the buffer
+ * (or unknown, e.g. after a restart) is told to resync through the changes endpoint instead.
+ */
+@Component
+public class NoteEventBus {
+
+    // Callbacks run while the user's channel is locked, so they must only hand the event off
+    public interface Listener {
+        void onEvent(NoteEvent event);
+
+        // The requested position is older than the buffer: some changes cannot be replayed
+        void onReplayGap();
+    }
+
+    private static final class Channel {
+        final NavigableMap<Long, NoteEvent> recent = new TreeMap<>();
+        // Copy-on-write: a listener may unsubscribe itself from inside a callback
+        final List<Listener> listeners = new CopyOnWriteArrayList<>();
+        // Every change at or below this sequence is missing from recent; MAX_VALUE until the first publish
+        long floor = Long.MAX_VALUE;
+        // Highest sequence published so far
+        long highest = Long.MIN_VALUE;
+        // Changes published after a higher sequence, mapped to the highest one published before them
+        final NavigableMap<Long, Long> late = new TreeMap<>();
+        long touchedAt;
+        boolean removed;
+    }
+
+    private final int replaySize;
+    private final long idleNanos;
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+
+    public NoteEventBus(@Value("${notes.stream.replay-size:100}") int replaySize,
+                        @Value("${notes.stream.replay-ttl-ms:600000}") long replayTtlMs) {
+        this.replaySize = replaySize;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(replayTtlMs);
+    }
+
+    // Call after commit. Concurrent writers may publish out of sequence order: a client that saw a higher
+    // sequence and left before a lower one arrived would not get it from a replay after its position, so
+    // resuming from anywhere between the two asks for a resync instead
+    public void publish(Long userId, List<NoteEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        withChannel(userId, channel -> {
+            for (NoteEvent event : events) {
+                long seq = event.getChangeSeq();
+                if (channel.floor == Long.MAX_VALUE) {
+                    channel.floor = seq - 1;
+                }
+                if (seq < channel.highest) {
+                    channel.late.put(seq, channel.highest);
+                } else {
+                    channel.highest = seq;
+                }
+                if (seq > channel.floor) {
+                    channel.recent.put(seq, event);
+                }
+                while (channel.recent.size() > replaySize) {
+                    channel.floor = Math.max(channel.floor, channel.recent.pollFirstEntry().getKey());
+                }
+                // Positions below the floor resync anyway
+                channel.late.values().removeIf(highest -> highest < channel.floor);
+                channel.listeners.forEach(listener -> listener.onEvent(event));
+            }
+        });
+    }
+
+    // Register a listener; with a position, buffered changes after it are delivered first, before any live event
+    public void subscribe(Long userId, Long afterSeq, Listener listener) {
+        withChannel(userId, channel -> {
+            if (afterSeq != null) {
+                if (afterSeq < channel.floor || missedLate(channel, afterSeq)) {
+                    listener.onReplayGap();
+                } else {
+                    channel.recent.tailMap(afterSeq, false).values().forEach(listener::onEvent);
+                }
+            }
+            channel.listeners.add(listener);
+        });
+    }
+
+    public void unsubscribe(Long userId, Listener listener) {
+        Channel channel = channels.get(userId);
+        if (channel != null) {
+            synchronized (channel) {
+                channel.listeners.remove(listener);
+            }
+        }
+    }
+
+    // Buffers of users with no open stream and no recent change are dropped; their next resume resyncs
+    @Scheduled(fixedDelayString = "${notes.stream.replay-sweep-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        channels.forEach((userId, channel) -> {
+            synchronized (channel) {
+                if (channel.listeners.isEmpty() && now - channel.touchedAt >= idleNanos) {
+                    channel.removed = true;
+                    channels.remove(userId, channel);
+                }
+            }
+        });
+    }
+
+    // Whether a change below the position was published after it, possibly once the client had gone
+    private static boolean missedLate(Channel channel, long afterSeq) {
+        for (long highest : channel.late.headMap(afterSeq, false).values()) {
+            if (highest >= afterSeq) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // A channel removed by the sweep between lookup and lock is replaced rather than used
+    private void withChannel(Long userId, Consumer<Channel> action) {
+        while (true) {
+            Channel channel = channels.computeIfAbsent(userId, id -> new Channel());
+            synchronized (channel) {
+                if (!channel.removed) {
+                    channel.touchedAt = System.nanoTime();
+                    action.accept(channel);
+                    return;
+                }
+            }
+        }
+    }
+}
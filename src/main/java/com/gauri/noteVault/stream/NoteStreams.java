@@ -0,0 +1,265 @@
+package com.gauri.noteVault.stream;
+
+import com.gauri.noteVault.dto.NoteEvent;
+import com.gauri.noteVault.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Open Server-Sent Events streams of note changes. An idle stream is only an async request and a
+ * small queue, no thread: a shared dispatch pool writes queued events and heartbeats, one drain task
+ * per stream at a time so events keep their order. A stream whose queue fills up (a client that stopped
+ * reading) is closed rather than allowed to grow, and the client resumes from its Last-Event-ID.
+ */
+@Component
+public class NoteStreams implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteStreams.class);
+
+    private static final Map<String, String> RESYNC = Map.of("reason",
+            "Changes since Last-Event-ID are no longer available here, sync with /api/notes/changes");
+
+    private final NoteEventBus eventBus;
+    private final long timeoutMs;
+    private final long reconnectMs;
+    private final int maxPerUser;
+    private final int maxStreams;
+    private final int maxPending;
+    private final long retryAfterSeconds;
+    private final ThreadPoolExecutor dispatcher;
+    private final Map<Long, Set<Stream>> streams = new ConcurrentHashMap<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final Counter evicted;
+    private final Counter rejected;
+
+    public NoteStreams(NoteEventBus eventBus, MeterRegistry registry,
+                       @Value("${notes.stream.dispatch-threads:4}") int threads,
+                       @Value("${notes.stream.timeout-ms:1800000}") long timeoutMs,
+                       @Value("${notes.stream.reconnect-ms:3000}") long reconnectMs,
+                       @Value("${notes.stream.max-per-user:5}") int maxPerUser,
+                       @Value("${notes.stream.max-streams:10000}") int maxStreams,
+                       @Value("${notes.stream.max-pending:100}") int maxPending,
+                       @Value("${notes.stream.retry-after-seconds:5}") long retryAfterSeconds) {
+        this.eventBus = eventBus;
+        this.timeoutMs = timeoutMs;
+        this.reconnectMs = reconnectMs;
+        this.maxPerUser = maxPerUser;
+        this.maxStreams = maxStreams;
+        this.maxPending = maxPending;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        // At most one drain task per stream is queued, so the queue is bounded by max-streams
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.dispatcher = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "note-stream-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("notevault.stream.connections", open, AtomicInteger::get)
+                .description("Open note change streams")
+                .register(registry);
+        Gauge.builder("notevault.stream.dispatch.queue.size", dispatcher, e -> e.getQueue().size())
+                .description("Streams with events waiting for a dispatch thread")
+                .register(registry);
+        this.evicted = Counter.builder("notevault.stream.evicted")
+                .description("Streams closed because the client fell too far behind")
+                .register(registry);
+        this.rejected = Counter.builder("notevault.stream.rejected")
+                .description("Streams refused by the per-user or total limit")
+                .register(registry);
+        logger.info("Note streams dispatching on {} threads, at most {} streams", threads, maxStreams);
+    }
+
+    // Open a stream for the user; with lastEventId, buffered changes after it are sent first
+    public SseEmitter open(Long userId, Long lastEventId) {
+        if (open.incrementAndGet() > maxStreams) {
+            open.decrementAndGet();
+            rejected.increment();
+            throw new ServiceOverloadedException("Too many open note streams, please retry shortly", retryAfterSeconds);
+        }
+        Stream stream = new Stream(userId, new SseEmitter(timeoutMs));
+        boolean[] admitted = {false};
+        streams.compute(userId, (id, mine) -> {
+            Set<Stream> set = mine != null ? mine : ConcurrentHashMap.newKeySet();
+            if (set.size() < maxPerUser) {
+                set.add(stream);
+                admitted[0] = true;
+            }
+            return set.isEmpty() ? null : set;
+        });
+        if (!admitted[0]) {
+            open.decrementAndGet();
+            rejected.increment();
+            logger.warn("User ID {} already has {} open note streams, refusing another", userId, maxPerUser);
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many open note streams");
+        }
+
+        SseEmitter emitter = stream.emitter;
+        emitter.onCompletion(stream::close);
+        emitter.onError(ex -> stream.close());
+        emitter.onTimeout(() -> {
+            if (stream.close()) {
+                emitter.complete();
+            }
+        });
+        // Sends the headers right away and tells EventSource how long to wait before reconnecting
+        stream.offer(SseEmitter.event().reconnectTime(reconnectMs).comment("connected"));
+        eventBus.subscribe(userId, lastEventId, stream);
+        if (stream.isClosed()) {
+            // Evicted while the replay was queued, before the subscription was registered
+            eventBus.unsubscribe(userId, stream);
+        }
+        logger.debug("Note stream opened for user ID: {} (last event: {})", userId, lastEventId);
+        return emitter;
+    }
+
+    // Comments keep proxies from timing out idle streams and surface clients that went away
+    @Scheduled(fixedDelayString = "${notes.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        streams.values().forEach(set -> set.forEach(stream -> stream.offer(SseEmitter.event().comment("heartbeat"))));
+    }
+
+    @Override
+    public void destroy() {
+        // Clients reconnect with their Last-Event-ID, to this instance once it is back or to another one
+        streams.values().forEach(set -> set.forEach(stream -> {
+            if (stream.close()) {
+                stream.emitter.complete();
+            }
+        }));
+        dispatcher.shutdown();
+    }
+
+    private final class Stream implements NoteEventBus.Listener {
+
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final ArrayDeque<SseEmitter.SseEventBuilder> pending = new ArrayDeque<>();
+        // Set while a drain task is queued or running; the drain task owns every write to the emitter
+        private boolean draining;
+        private boolean closed;
+
+        Stream(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void onEvent(NoteEvent event) {
+            offer(SseEmitter.event().id(Long.toString(event.getChangeSeq())).data(event, MediaType.APPLICATION_JSON));
+        }
+
+        @Override
+        public void onReplayGap() {
+            offer(SseEmitter.event().name("resync").data(RESYNC, MediaType.APPLICATION_JSON));
+        }
+
+        void offer(SseEmitter.SseEventBuilder message) {
+            boolean overflow;
+            boolean schedule = false;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                overflow = pending.size() >= maxPending;
+                if (!overflow) {
+                    pending.add(message);
+                    schedule = !draining;
+                    draining = true;
+                }
+            }
+            if (overflow) {
+                evicted.increment();
+                logger.warn("Note stream of user ID {} has {} undelivered events, closing it", userId, maxPending);
+                // A full queue means a drain task is still running; it ends the response once it sees the close
+                close();
+                return;
+            }
+            if (schedule) {
+                try {
+                    dispatcher.execute(this::drain);
+                } catch (RejectedExecutionException ex) {
+                    // Only after shutdown
+                    close();
+                }
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                SseEmitter.SseEventBuilder next;
+                synchronized (this) {
+                    if (closed) {
+                        draining = false;
+                        pending.clear();
+                        break;
+                    }
+                    next = pending.poll();
+                    if (next == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(next);
+                } catch (IOException | IllegalStateException ex) {
+                    // The client went away or the response already ended
+                    logger.debug("Note stream of user ID {} failed: {}", userId, ex.getMessage());
+                    close();
+                    return;
+                }
+            }
+            // Closed by eviction or shutdown while this task owned the writes, so it ends the response
+            emitter.complete();
+        }
+
+        synchronized boolean isClosed() {
+            return closed;
+        }
+
+        // True when no drain task owns the emitter, so the caller may end the response itself
+        boolean close() {
+            boolean idle;
+            synchronized (this) {
+                if (closed) {
+                    return false;
+                }
+                closed = true;
+                idle = !draining;
+            }
+            streams.computeIfPresent(userId, (id, set) -> {
+                set.remove(this);
+                return set.isEmpty() ? null : set;
+            });
+            open.decrementAndGet();
+            eventBus.unsubscribe(userId, this);
+            return idle;
+        }
+    }
+}
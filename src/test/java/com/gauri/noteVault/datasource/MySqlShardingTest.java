@@ -0,0 +1,41 @@
+package com.gauri.noteVault.datasource;
+
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// ShardingTest against MySQL 8, whose SQL dialect H2's MySQL mode only approximates (e.g. it accepts FETCH FIRST)
+@Testcontainers(disabledWithoutDocker = true)
+class MySqlShardingTest extends ShardingTest {
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0")
+            .withUsername("root")
+            .withPassword("sharding-test");
+
+    @DynamicPropertySource
+    static void shardDatabases(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> url("sharding_0"));
+        registry.add("spring.datasource.username", MYSQL::getUsername);
+        registry.add("spring.datasource.password", MYSQL::getPassword);
+        registry.add("notevault.sharding.shard-urls", () -> url("sharding_1") + "," + url("sharding_2"));
+    }
+
+    // Each shard is its own database on the one server; the shard pools reuse the primary's credentials
+    private static String url(String database) {
+        try (Connection connection = DriverManager.getConnection(MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword());
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE DATABASE IF NOT EXISTS " + database);
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Could not create " + database, ex);
+        }
+        return MYSQL.getJdbcUrl().replace("/" + MYSQL.getDatabaseName(), "/" + database);
+    }
+}
@@ -0,0 +1,103 @@
+package com.gauri.noteVault.datasource;
+
+import com.gauri.noteVault.security.AuthenticatedUser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Which database a transaction's statements reach, using two H2 databases that identify themselves
+class ReplicaRoutingDataSourceTest {
+
+    private static final long USER_ID = 7L;
+
+    private RecentWrites recentWrites;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        recentWrites = new RecentWrites(60_000);
+        DataSource primary = database("primary");
+        ReplicaPool pool = new ReplicaPool(List.of(
+                new ReplicaPool.Replica("replica-0", database("replica"))), 60_000);
+        wire(primary, pool);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionUsesReplica() {
+        assertThat(whereAmI(readOnly)).isEqualTo("replica");
+    }
+
+    @Test
+    void readWriteTransactionUsesPrimary() {
+        assertThat(whereAmI(readWrite)).isEqualTo("primary");
+    }
+
+    @Test
+    void recentWriterReadsFromPrimary() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new AuthenticatedUser(USER_ID, "writer"), null, List.of()));
+        assertThat(whereAmI(readOnly)).isEqualTo("replica");
+
+        recentWrites.record(USER_ID);
+        assertThat(whereAmI(readOnly)).isEqualTo("primary");
+    }
+
+    @Test
+    void onPrimaryOverridesReadOnly() {
+        assertThat(ReadRouting.onPrimary(() -> whereAmI(readOnly))).isEqualTo("primary");
+        assertThat(whereAmI(readOnly)).isEqualTo("replica");
+    }
+
+    @Test
+    void unreachableReplicaFallsBackToPrimary() {
+        DriverManagerDataSource broken = new DriverManagerDataSource("jdbc:unreachable:replica");
+        wire(database("primary"), new ReplicaPool(List.of(new ReplicaPool.Replica("replica-0", broken)), 60_000));
+
+        assertThat(whereAmI(readOnly)).isEqualTo("primary");
+        assertThat(whereAmI(readOnly)).isEqualTo("primary");
+    }
+
+    private void wire(DataSource primary, ReplicaPool pool) {
+        DataSource routing = new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primary, pool, recentWrites));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        jdbc = new JdbcTemplate(routing);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    // Typed here: assertThat on execute's generic result does not resolve to one overload
+    private String whereAmI(TransactionTemplate transaction) {
+        return transaction.execute(status -> jdbc.queryForObject("SELECT name FROM whoami", String.class));
+    }
+
+    private static DataSource database(String name) {
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE IF NOT EXISTS whoami (name VARCHAR(20))");
+        jdbc.execute("DELETE FROM whoami");
+        jdbc.update("INSERT INTO whoami VALUES (?)", name);
+        return dataSource;
+    }
+}
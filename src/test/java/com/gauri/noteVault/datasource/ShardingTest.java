@@ -0,0 +1,123 @@
+package com.gauri.noteVault.datasource;
+
+import com.gauri.noteVault.dto.NoteRequestDTO;
+import com.gauri.noteVault.dto.NoteResponseDTO;
+import com.gauri.noteVault.dto.RegisterRequest;
+import com.gauri.noteVault.exception.ServiceOverloadedException;
+import com.gauri.noteVault.security.AuthenticatedUser;
+import com.gauri.noteVault.service.AuthService;
+import com.gauri.noteVault.service.NoteService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Three embedded databases: accounts on shard-0, notes wherever the ring or a migration puts them
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sharding-0;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "notevault.sharding.shard-urls=jdbc:h2:mem:sharding-1;DB_CLOSE_DELAY=-1;MODE=MySQL,"
+                + "jdbc:h2:mem:sharding-2;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        // No directory caching, so the migration does not wait for entries to expire
+        "notevault.sharding.directory-cache.ttl-ms=0",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "jwt.secret=sharding-test-secret-sharding-test-secret-0123",
+        "jwt.expiration-ms=3600000"
+})
+class ShardingTest {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private ShardDirectory directory;
+
+    @Autowired
+    private ShardMigrator migrator;
+
+    @Autowired
+    private ShardPools pools;
+
+    @Autowired
+    private Shards shards;
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void notesStayWithTheirOwnerAcrossAMove() {
+        Long userId = register("mover");
+        String home = directory.shardOf(userId);
+        NoteResponseDTO kept = noteService.createNote(new NoteRequestDTO("kept", "stays", List.of("a")), userId);
+        NoteResponseDTO deleted = noteService.createNote(new NoteRequestDTO("deleted", "goes", List.of()), userId);
+        noteService.delete(deleted.getId(), userId);
+
+        assertThat(notesOn(home, userId)).isEqualTo(1);
+        assertThat(accountsOn(Shards.DIRECTORY, userId)).isEqualTo(1);
+
+        String target = shards.names().stream().filter(shard -> !shard.equals(home)).findFirst().orElseThrow();
+        ShardMigrator.Result result = migrator.migrate(userId, target);
+
+        assertThat(result.notesCopied()).isEqualTo(1);
+        assertThat(result.tombstonesCopied()).isEqualTo(1);
+        assertThat(directory.shardOf(userId)).isEqualTo(target);
+        assertThat(notesOn(target, userId)).isEqualTo(1);
+        assertThat(notesOn(home, userId)).isZero();
+
+        NoteResponseDTO read = noteService.getById(kept.getId(), userId);
+        assertThat(read.getTitle()).isEqualTo("kept");
+        assertThat(read.getVersion()).isEqualTo(kept.getVersion());
+        assertThat(noteService.changesSince(userId, null, 10).getDeleted()).contains(deleted.getId());
+
+        noteService.createNote(new NoteRequestDTO("after", "the move", List.of()), userId);
+        assertThat(notesOn(target, userId)).isEqualTo(2);
+    }
+
+    @Test
+    void oldShardRefusesLateWrites() {
+        Long userId = register("late-writer");
+        String home = directory.shardOf(userId);
+        noteService.createNote(new NoteRequestDTO("first", "note", List.of()), userId);
+        String target = shards.names().stream().filter(shard -> !shard.equals(home)).findFirst().orElseThrow();
+        migrator.migrate(userId, target);
+
+        // As if this instance still had the old directory entry cached
+        assertThatThrownBy(() -> ShardRouting.onShard(home,
+                () -> noteService.createNote(new NoteRequestDTO("late", "write", List.of()), userId)))
+                .isInstanceOf(ServiceOverloadedException.class);
+        assertThat(notesOn(home, userId)).isZero();
+    }
+
+    private Long register(String username) {
+        authService.register(new RegisterRequest(username, "secret-password", "Test User")).join();
+        Long userId = new JdbcTemplate(pools.get(Shards.DIRECTORY))
+                .queryForObject("SELECT id FROM users WHERE username = ?", Long.class, username);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new AuthenticatedUser(userId, username), null, List.of()));
+        return userId;
+    }
+
+    private long notesOn(String shard, Long userId) {
+        return new JdbcTemplate(pools.get(shard))
+                .queryForObject("SELECT COUNT(*) FROM notes WHERE user_id = ?", Long.class, userId);
+    }
+
+    private long accountsOn(String shard, Long userId) {
+        return new JdbcTemplate(pools.get(shard))
+                .queryForObject("SELECT COUNT(*) FROM users WHERE id = ?", Long.class, userId);
+    }
+}
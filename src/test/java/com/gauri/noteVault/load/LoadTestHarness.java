@@ -0,0 +1,358 @@
+package com.gauri.noteVault.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.gauri.noteVault.NoteVaultApplication;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Boots NoteVaultApplication on a random port against an in-memory H2 database (MySQL mode),
+ * seeds users and notes over the API, then drives a weighted mix of requests from concurrent clients
+ * and reports throughput and latency percentiles per endpoint.
+ * Everything runs in one JVM with no network or external database, so it works offline.
+ * Run it through NoteVaultLoadTest (mvn -P loadtest test) or the main method; settings come from
+ * loadtest.* system properties, see {@link Config#fromSystemProperties()}.
+ */
+public class LoadTestHarness {
+
+    // Weighted request mix, roughly what the clients do in production
+    enum Endpoint {
+        REGISTER(1), LOGIN(4), CREATE(15), GET(35), UPDATE(10), LIST(20), SEARCH(15);
+
+        final int weight;
+
+        Endpoint(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    public record Config(int users, int notesPerUser, int clients, Duration warmup, Duration duration,
+                         Path reportFile) {
+
+        public static Config fromSystemProperties() {
+            return new Config(
+                    Integer.getInteger("loadtest.users", 20),
+                    Integer.getInteger("loadtest.notesPerUser", 200),
+                    Integer.getInteger("loadtest.clients", 16),
+                    Duration.ofSeconds(Long.getLong("loadtest.warmupSeconds", 10)),
+                    Duration.ofSeconds(Long.getLong("loadtest.durationSeconds", 30)),
+                    Path.of(System.getProperty("loadtest.report", "target/loadtest-report.json")));
+        }
+    }
+
+    public record EndpointStats(long requests, long errors, double throughput,
+                                double p50Ms, double p95Ms, double p99Ms, double maxMs) {
+    }
+
+    public record Report(double seconds, double throughput, long errors, Map<String, EndpointStats> endpoints) {
+    }
+
+    private static final String PASSWORD = "load-test-password";
+    private static final String[] WORDS = {
+            "vault", "meeting", "budget", "travel", "recipe", "project", "deadline", "invoice", "garden",
+            "release", "backlog", "design", "review", "holiday", "workout", "reading", "grocery", "family"
+    };
+    private static final int TOTAL_WEIGHT = Arrays.stream(Endpoint.values()).mapToInt(e -> e.weight).sum();
+
+    private final Config config;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+    private final List<SeededUser> users = new ArrayList<>();
+    private String baseUrl;
+
+    public LoadTestHarness(Config config) {
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Report report = new LoadTestHarness(Config.fromSystemProperties()).run();
+        System.exit(report.errors() == 0 ? 0 : 1);
+    }
+
+    public Report run() throws Exception {
+        try (ConfigurableApplicationContext context = startApplication()) {
+            baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            seed();
+
+            System.out.printf("Warming up for %d s with %d clients%n", config.warmup().toSeconds(), config.clients());
+            drive(config.warmup(), new EnumMap<>(Endpoint.class));
+
+            Map<Endpoint, Recorder> recorders = new EnumMap<>(Endpoint.class);
+            for (Endpoint endpoint : Endpoint.values()) {
+                recorders.put(endpoint, new Recorder());
+            }
+            System.out.printf("Measuring for %d s%n", config.duration().toSeconds());
+            double seconds = drive(config.duration(), recorders);
+
+            Report report = report(seconds, recorders);
+            print(report);
+            Files.createDirectories(config.reportFile().toAbsolutePath().getParent());
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(config.reportFile().toFile(), report);
+            System.out.println("Report written to " + config.reportFile().toAbsolutePath());
+            return report;
+        }
+    }
+
+    private ConfigurableApplicationContext startApplication() {
+        return new SpringApplicationBuilder(NoteVaultApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1;MODE=MySQL",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.datasource.hikari.maximum-pool-size=" + Math.max(10, config.clients()),
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "jwt.secret=load-test-secret-load-test-secret-0123456789",
+                        "jwt.expiration-ms=3600000",
+                        // Measure the server, not the per-client limits; the limiter itself stays in the path
+                        "rate-limit.user.rate-per-second=1000000",
+                        "rate-limit.user.burst=1000000",
+                        "rate-limit.address.rate-per-second=1000000",
+                        "rate-limit.address.burst=1000000",
+                        "logging.level.com.gauri.noteVault=WARN",
+                        "logging.level.org.hibernate=WARN")
+                .run();
+    }
+
+    // Users are registered over HTTP; their notes are created in batches to keep seeding fast
+    private void seed() throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        for (int u = 0; u < config.users(); u++) {
+            String username = "load-user-" + u;
+            JsonNode auth = send("POST", "/api/auth/register", null,
+                    Map.of("username", username, "password", PASSWORD, "fullName", "Load User " + u), 200);
+            SeededUser user = new SeededUser(username, auth.get("token").asText());
+
+            for (int created = 0; created < config.notesPerUser(); ) {
+                int batch = Math.min(500, config.notesPerUser() - created);
+                ArrayNode operations = objectMapper.createArrayNode();
+                for (int i = 0; i < batch; i++) {
+                    ObjectNode operation = operations.addObject();
+                    operation.put("op", "create");
+                    operation.set("note", objectMapper.valueToTree(randomNote()));
+                }
+                ObjectNode body = objectMapper.createObjectNode();
+                body.set("operations", operations);
+                JsonNode results = send("POST", "/api/notes/batch", user.token, body, 200);
+                results.forEach(result -> user.addNote(result.get("id").asLong()));
+                created += batch;
+            }
+            users.add(user);
+        }
+        System.out.printf("Seeded %d users with %d notes each in %d ms%n", config.users(), config.notesPerUser(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    // Run every client until the deadline; returns the elapsed seconds
+    private double drive(Duration duration, Map<Endpoint, Recorder> recorders) throws InterruptedException {
+        ExecutorService clients = Executors.newFixedThreadPool(config.clients());
+        long started = System.nanoTime();
+        long deadline = started + duration.toNanos();
+        for (int c = 0; c < config.clients(); c++) {
+            clients.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    Endpoint endpoint = pick(random);
+                    SeededUser user = users.get(random.nextInt(users.size()));
+                    long requestStarted = System.nanoTime();
+                    boolean ok;
+                    try {
+                        ok = execute(endpoint, user, random);
+                    } catch (Exception ex) {
+                        ok = false;
+                    }
+                    Recorder recorder = recorders.get(endpoint);
+                    if (recorder != null) {
+                        recorder.record(System.nanoTime() - requestStarted, ok);
+                    }
+                }
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+        return (System.nanoTime() - started) / 1e9;
+    }
+
+    private boolean execute(Endpoint endpoint, SeededUser user, ThreadLocalRandom random)
+            throws IOException, InterruptedException {
+        switch (endpoint) {
+            case REGISTER -> {
+                String username = "load-" + UUID.randomUUID();
+                return status("POST", "/api/auth/register", null,
+                        Map.of("username", username, "password", PASSWORD, "fullName", "New User")) == 200;
+            }
+            case LOGIN -> {
+                return status("POST", "/api/auth/login", null,
+                        Map.of("username", user.username, "password", PASSWORD)) == 200;
+            }
+            case CREATE -> {
+                JsonNode created = send("POST", "/api/notes", user.token, randomNote(), 200);
+                user.addNote(created.get("id").asLong());
+                return true;
+            }
+            case GET -> {
+                return status("GET", "/api/notes/" + user.randomNote(random), user.token, null) == 200;
+            }
+            case UPDATE -> {
+                return status("PUT", "/api/notes/" + user.randomNote(random), user.token, randomNote()) == 200;
+            }
+            case LIST -> {
+                return status("GET", "/api/notes?page=" + random.nextInt(5) + "&size=20", user.token, null) == 200;
+            }
+            case SEARCH -> {
+                return status("GET", "/api/notes?q=" + WORDS[random.nextInt(WORDS.length)] + "&size=20",
+                        user.token, null) == 200;
+            }
+            default -> throw new IllegalStateException("Unexpected endpoint " + endpoint);
+        }
+    }
+
+    private static Endpoint pick(ThreadLocalRandom random) {
+        int ticket = random.nextInt(TOTAL_WEIGHT);
+        for (Endpoint endpoint : Endpoint.values()) {
+            ticket -= endpoint.weight;
+            if (ticket < 0) {
+                return endpoint;
+            }
+        }
+        return Endpoint.GET;
+    }
+
+    private Map<String, Object> randomNote() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return Map.of(
+                "title", sentence(random, 4),
+                "content", sentence(random, 20 + random.nextInt(200)),
+                "tags", List.of(WORDS[random.nextInt(WORDS.length)], WORDS[random.nextInt(WORDS.length)]));
+    }
+
+    private static String sentence(ThreadLocalRandom random, int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            sentence.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sentence.toString();
+    }
+
+    private JsonNode send(String method, String path, String token, Object body, int expectedStatus)
+            throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = http.send(request(method, path, token, body), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != expectedStatus) {
+            throw new IOException(method + " " + path + " returned " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private int status(String method, String path, String token, Object body) throws IOException, InterruptedException {
+        return http.send(request(method, path, token, body), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private HttpRequest request(String method, String path, String token, Object body) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json");
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        HttpRequest.BodyPublisher publisher = body != null
+                ? HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body))
+                : HttpRequest.BodyPublishers.noBody();
+        return builder.method(method, publisher).build();
+    }
+
+    private static Report report(double seconds, Map<Endpoint, Recorder> recorders) {
+        Map<String, EndpointStats> endpoints = new LinkedHashMap<>();
+        long total = 0;
+        long errors = 0;
+        for (Map.Entry<Endpoint, Recorder> entry : recorders.entrySet()) {
+            Histogram histogram = entry.getValue().latencies;
+            long requests = histogram.getTotalCount();
+            long failed = entry.getValue().errors.get();
+            endpoints.put(entry.getKey().name(), new EndpointStats(requests, failed, requests / seconds,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(95)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getMaxValue())));
+            total += requests;
+            errors += failed;
+        }
+        return new Report(seconds, total / seconds, errors, endpoints);
+    }
+
+    private static void print(Report report) {
+        System.out.printf("%n%-10s %10s %8s %10s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        report.endpoints().forEach((name, s) -> System.out.printf("%-10s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                name, s.requests(), s.errors(), s.throughput(), s.p50Ms(), s.p95Ms(), s.p99Ms(), s.maxMs()));
+        System.out.printf("total: %.1f req/s over %.1f s, %d errors%n%n", report.throughput(), report.seconds(), report.errors());
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    // Latencies in microseconds, up to one minute, with three significant digits
+    private static final class Recorder {
+
+        private final Histogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+        private final AtomicLong errors = new AtomicLong();
+
+        void record(long nanos, boolean ok) {
+            latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), latencies.getHighestTrackableValue()));
+            if (!ok) {
+                errors.incrementAndGet();
+            }
+        }
+    }
+
+    private static final class SeededUser {
+
+        private final String username;
+        private final String token;
+        private final List<Long> noteIds = new ArrayList<>();
+
+        SeededUser(String username, String token) {
+            this.username = username;
+            this.token = token;
+        }
+
+        synchronized void addNote(long id) {
+            noteIds.add(id);
+        }
+
+        synchronized long randomNote(ThreadLocalRandom random) {
+            return noteIds.get(random.nextInt(noteIds.size()));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.gauri.noteVault.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Performance gate around LoadTestHarness; excluded from the normal build and run with mvn -P loadtest test.
+ * Fails on any request error, and on loadtest.minThroughput / loadtest.maxP99Ms when those are set.
+ */
+@Tag("load")
+class NoteVaultLoadTest {
+
+    @Test
+    void sustainsMixedWorkload() throws Exception {
+        LoadTestHarness.Report report = new LoadTestHarness(LoadTestHarness.Config.fromSystemProperties()).run();
+
+        assertThat(report.errors()).as("failed requests").isZero();
+
+        String minThroughput = System.getProperty("loadtest.minThroughput");
+        if (minThroughput != null) {
+            assertThat(report.throughput()).as("requests per second").isGreaterThanOrEqualTo(Double.parseDouble(minThroughput));
+        }
+        String maxP99 = System.getProperty("loadtest.maxP99Ms");
+        if (maxP99 != null) {
+            double limit = Double.parseDouble(maxP99);
+            report.endpoints().forEach((endpoint, stats) ->
+                    assertThat(stats.p99Ms()).as("p99 of " + endpoint).isLessThanOrEqualTo(limit));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.gauri.noteVault.search;
+
+import com.gauri.noteVault.datasource.Shards;
+import com.gauri.noteVault.repository.NoteOwnerRow;
+import com.gauri.noteVault.repository.NoteRepository;
+import com.gauri.noteVault.repository.NoteTag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Ordinal bookkeeping: pages must come out in id order through compaction, late writes and rebuilds
+class NoteTagIndexTest {
+
+    private static final long USER_ID = 1L;
+
+    private final NoteRepository repository = mock(NoteRepository.class);
+    private final NoteTagIndex index = new NoteTagIndex(repository, Shards.single(), 1000);
+
+    @Test
+    void compactionKeepsMatchesAndCounts() {
+        LongStream.rangeClosed(1, 3000).forEach(id -> index.put(USER_ID, id, List.of("a", id % 2 == 0 ? "even" : "odd")));
+        // Enough dead ordinals, outnumbering the live ones, to trigger a renumbering
+        LongStream.rangeClosed(1, 2000).forEach(id -> index.remove(USER_ID, id));
+
+        Page<Long> page = index.match(USER_ID, List.of("a"), true, PageRequest.of(0, 5));
+        assertThat(page.getContent()).containsExactly(2001L, 2002L, 2003L, 2004L, 2005L);
+        assertThat(page.getTotalElements()).isEqualTo(1000);
+        assertThat(index.counts(USER_ID)).containsEntry("a", 1000L).containsEntry("even", 500L).containsEntry("odd", 500L);
+        assertThat(index.match(USER_ID, List.of("a", "even"), true, PageRequest.of(1, 3)).getContent())
+                .containsExactly(2008L, 2010L, 2012L);
+
+        // The renumbered index keeps accepting writes
+        index.put(USER_ID, 5000L, List.of("a"));
+        index.put(USER_ID, 2001L, List.of("moved"));
+        assertThat(index.match(USER_ID, List.of("a"), true, PageRequest.of(0, 2)).getContent()).containsExactly(2002L, 2003L);
+        assertThat(index.match(USER_ID, List.of("a"), true, PageRequest.of(49, 20)).getContent()).endsWith(5000L);
+        assertThat(index.match(USER_ID, List.of("moved"), true, PageRequest.of(0, 5)).getContent()).containsExactly(2001L);
+    }
+
+    @Test
+    void outOfOrderPutIsSortedUntilTheReorderSweep() {
+        index.put(USER_ID, 10L, List.of("t"));
+        index.put(USER_ID, 30L, List.of("t"));
+        index.put(USER_ID, 20L, List.of("t"));
+
+        assertThat(index.isIdOrdered(USER_ID)).isFalse();
+        assertThat(index.match(USER_ID, List.of("t"), true, PageRequest.of(0, 2)).getContent()).containsExactly(10L, 20L);
+
+        index.reorderDisordered();
+
+        assertThat(index.isIdOrdered(USER_ID)).isTrue();
+        assertThat(index.match(USER_ID, List.of("t"), true, PageRequest.of(0, 3)).getContent()).containsExactly(10L, 20L, 30L);
+        assertThat(index.match(USER_ID, List.of("t"), true, PageRequest.of(1, 2)).getContent()).containsExactly(30L);
+    }
+
+    @Test
+    void compactionRestoresIdOrder() {
+        LongStream.rangeClosed(100, 3099).forEach(id -> index.put(USER_ID, id, List.of("t")));
+        index.put(USER_ID, 50L, List.of("t"));
+        assertThat(index.isIdOrdered(USER_ID)).isFalse();
+
+        LongStream.rangeClosed(100, 2099).forEach(id -> index.remove(USER_ID, id));
+
+        assertThat(index.isIdOrdered(USER_ID)).isTrue();
+        assertThat(index.match(USER_ID, List.of("t"), true, PageRequest.of(0, 3)).getContent()).containsExactly(50L, 2100L, 2101L);
+    }
+
+    @Test
+    void rebuildKeepsLiveWritesAndEndsInIdOrder() {
+        when(repository.findNoteOwners(anyLong(), any())).thenAnswer(invocation ->
+                (Long) invocation.getArgument(0) == 0L
+                        ? List.of(new NoteOwnerRow(10L, USER_ID), new NoteOwnerRow(20L, USER_ID), new NoteOwnerRow(30L, USER_ID))
+                        : List.of());
+        when(repository.findTagsByNoteIds(any())).thenAnswer(invocation -> {
+            // Committed while the rebuild was reading: an edit of 20 and a new note with a lower id
+            index.put(USER_ID, 20L, List.of("live"));
+            index.put(USER_ID, 5L, List.of("db", "live"));
+            return List.of(new NoteTag(10L, "db"), new NoteTag(20L, "db"), new NoteTag(30L, "db"));
+        });
+
+        index.rebuild();
+
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.isIdOrdered(USER_ID)).isTrue();
+        assertThat(index.match(USER_ID, List.of("db"), true, PageRequest.of(0, 10)).getContent()).containsExactly(5L, 10L, 30L);
+        assertThat(index.match(USER_ID, List.of("live"), true, PageRequest.of(0, 10)).getContent()).containsExactly(5L, 20L);
+        assertThat(index.match(USER_ID, List.of("db", "live"), false, PageRequest.of(0, 10)).getContent())
+                .containsExactly(5L, 10L, 20L, 30L);
+    }
+}
@@ -0,0 +1,109 @@
+package com.gauri.noteVault.search;
+
+import com.gauri.noteVault.dto.NoteSuggestion;
+import com.gauri.noteVault.repository.NoteRepository;
+import com.gauri.noteVault.repository.NoteSummaryRow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Sorted word-start keys: lookups must stay right as titles are written, renamed and removed
+class TitleSuggesterTest {
+
+    private static final long USER_ID = 1L;
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private final NoteRepository repository = mock(NoteRepository.class);
+    private final TitleSuggester suggester = new TitleSuggester(repository, new SimpleMeterRegistry(), 1 << 20, 8);
+
+    @Test
+    void suggestMatchesAnyWordMostRecentFirst() {
+        load(row(1, "Grocery list", 1), row(2, "Weekly groceries plan", 3), row(3, "Garden plan", 2),
+                row(4, "Café notes", 4));
+
+        assertThat(ids("gro", 10)).containsExactly(2L, 1L);
+        assertThat(ids("plan", 10)).containsExactly(2L, 3L);
+        assertThat(ids("CAFE", 10)).containsExactly(4L);
+        assertThat(ids("g", 2)).containsExactly(2L, 3L);
+        assertThat(ids("weekly gro", 10)).containsExactly(2L);
+        assertThat(ids("xyz", 10)).isEmpty();
+    }
+
+    @Test
+    void titleRepeatingAWordIsSuggestedOnce() {
+        load(row(1, "Plan, plan and plan again", 1), row(2, "Planning", 2));
+
+        assertThat(ids("plan", 10)).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void putAddsNotesForLoadedUsersOnly() {
+        suggester.put(USER_ID, 9L, "Before load", at(9));
+        load();
+
+        suggester.put(USER_ID, 5L, "Trip to Rome", at(5));
+        suggester.put(USER_ID, 6L, "Rome restaurants", at(6));
+
+        assertThat(ids("rome", 10)).containsExactly(6L, 5L);
+        assertThat(ids("before", 10)).isEmpty();
+    }
+
+    @Test
+    void renameReplacesTheOldWords() {
+        load(row(5, "Trip to Rome", 5), row(6, "Rome restaurants", 6));
+
+        suggester.put(USER_ID, 5L, "Trip to Paris", at(7));
+
+        assertThat(ids("rome", 10)).containsExactly(6L);
+        assertThat(ids("paris", 10)).containsExactly(5L);
+        assertThat(ids("trip", 10)).containsExactly(5L);
+        assertThat(ids("r", 10)).containsExactly(6L);
+
+        // Ordered by each note's latest write, not by when it was first added
+        suggester.put(USER_ID, 6L, "Paris hotels", at(3));
+        assertThat(ids("paris", 10)).containsExactly(5L, 6L);
+    }
+
+    @Test
+    void removeDropsOnlyThatNotesKeys() {
+        load();
+        LongStream.rangeClosed(1, 50).forEach(id -> suggester.put(USER_ID, id, "Meeting " + id + " notes", at(id)));
+        LongStream.rangeClosed(1, 50).filter(id -> id % 2 == 0).forEach(id -> suggester.remove(USER_ID, id));
+
+        assertThat(ids("meeting", 100)).containsExactlyElementsOf(
+                LongStream.iterate(49, id -> id >= 1, id -> id - 2).boxed().toList());
+        assertThat(ids("notes", 3)).containsExactly(49L, 47L, 45L);
+        assertThat(ids("2", 10)).containsExactly(29L, 27L, 25L, 23L, 21L);
+        assertThat(ids("4", 10)).containsExactly(49L, 47L, 45L, 43L, 41L);
+
+        // Freed slots are reused by later writes
+        suggester.put(USER_ID, 100L, "Standup", at(100));
+        suggester.remove(USER_ID, 49L);
+        assertThat(ids("s", 10)).containsExactly(100L);
+        assertThat(ids("meeting", 1)).containsExactly(47L);
+    }
+
+    private void load(NoteSummaryRow... rows) {
+        when(repository.findAllSummariesByUserId(USER_ID)).thenReturn(List.of(rows));
+        suggester.suggest(USER_ID, "load", 1);
+    }
+
+    private List<Long> ids(String prefix, int limit) {
+        return suggester.suggest(USER_ID, prefix, limit).stream().map(NoteSuggestion::getId).toList();
+    }
+
+    private static NoteSummaryRow row(long id, String title, long minute) {
+        return new NoteSummaryRow(id, title, at(0), at(minute), 0L);
+    }
+
+    private static LocalDateTime at(long minute) {
+        return START.plusMinutes(minute);
+    }
+}
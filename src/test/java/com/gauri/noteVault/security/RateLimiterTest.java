@@ -0,0 +1,40 @@
+package com.gauri.noteVault.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Per-address limits must hold when clients rotate addresses
+class RateLimiterTest {
+
+    // 1 request per second with a burst of 2, and room for only 3 address buckets
+    private final RateLimiter limiter = new RateLimiter(new SimpleMeterRegistry(), true,
+            20, 60, 1, 2, 3, 1, 2, 5, 2, 10, 20, 1);
+
+    @Test
+    void newAddressesShareOneBucketOnceTheMapIsFull() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.acquireForAddress("10.0.0." + i, 1).allowed()).isTrue();
+        }
+
+        // Fresh addresses beyond the bound draw from the same overflow bucket
+        assertThat(limiter.acquireForAddress("10.0.1.1", 1).allowed()).isTrue();
+        assertThat(limiter.acquireForAddress("10.0.1.2", 1).allowed()).isTrue();
+        assertThat(limiter.acquireForAddress("10.0.1.3", 1).allowed()).isFalse();
+    }
+
+    @Test
+    void ipv6AddressesInOneSlash64ShareABucket() {
+        assertThat(limiter.acquireForAddress("2001:db8:1:2::1", 1).allowed()).isTrue();
+        assertThat(limiter.acquireForAddress("2001:db8:1:2:ffff::9", 1).allowed()).isTrue();
+        assertThat(limiter.acquireForAddress("2001:db8:1:2:abcd:1:2:3", 1).allowed()).isFalse();
+        assertThat(limiter.acquireForAddress("2001:db8:1:3::1", 1).allowed()).isTrue();
+    }
+
+    @Test
+    void networkOfKeepsIpv4AndTruncatesIpv6() {
+        assertThat(RateLimiter.networkOf("192.0.2.7")).isEqualTo("192.0.2.7");
+        assertThat(RateLimiter.networkOf("2001:db8:0:1:2:3:4:5")).isEqualTo("2001:db8:0:1::/64");
+    }
+}
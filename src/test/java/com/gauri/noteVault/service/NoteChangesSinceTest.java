@@ -0,0 +1,111 @@
+package com.gauri.noteVault.service;
+
+import com.gauri.noteVault.datasource.RecentWrites;
+import com.gauri.noteVault.datasource.Shards;
+import com.gauri.noteVault.dto.NoteChangesResponse;
+import com.gauri.noteVault.dto.NoteRequestDTO;
+import com.gauri.noteVault.dto.NoteResponseDTO;
+import com.gauri.noteVault.entity.Note;
+import com.gauri.noteVault.entity.User;
+import com.gauri.noteVault.entity.UserNoteCounter;
+import com.gauri.noteVault.repository.NoteRepository;
+import com.gauri.noteVault.repository.UserNoteCounterRepository;
+import com.gauri.noteVault.repository.UserRepository;
+import com.gauri.noteVault.search.NoteTagIndex;
+import com.gauri.noteVault.search.TitleSuggester;
+import com.gauri.noteVault.stream.NoteEventBus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Paging through the change feed when many notes share a sequence, as notes written before change tracking do
+@DataJpaTest
+@Import({NoteServiceImpl.class, NoteDtoCache.class, ChangeSequence.class, NoteTagIndex.class,
+        TitleSuggester.class, RecentWrites.class, Shards.class, NoteEventBus.class, SimpleMeterRegistry.class})
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+class NoteChangesSinceTest {
+
+    private static final int LEGACY_NOTES = 25;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private UserNoteCounterRepository counterRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Long userId;
+    private final List<Long> legacyIds = new ArrayList<>();
+
+    @BeforeEach
+    void seedLegacyNotes() {
+        User user = userRepository.save(User.builder()
+                .username("changes")
+                .password("hash")
+                .roles("USER")
+                .build());
+        userId = user.getId();
+
+        // Saved without a sequence, so all of them sit at change_seq 0
+        for (int i = 0; i < LEGACY_NOTES; i++) {
+            legacyIds.add(noteRepository.save(Note.builder()
+                    .title("Legacy " + i)
+                    .content("Content " + i)
+                    .user(user)
+                    .build()).getId());
+        }
+        counterRepository.save(new UserNoteCounter(userId, 0, (long) LEGACY_NOTES));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void fullSyncDeliversEveryNoteSharingSequenceZero() {
+        NoteResponseDTO created = noteService.createNote(new NoteRequestDTO("New", "Fresh", List.of()), userId);
+        noteService.delete(legacyIds.get(3), userId);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Long> changed = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        String cursor = null;
+        NoteChangesResponse page;
+        do {
+            page = noteService.changesSince(userId, cursor, 10);
+            page.getChanged().forEach(note -> changed.add(note.getId()));
+            deleted.addAll(page.getDeleted());
+            cursor = page.getCursor();
+        } while (page.isHasMore());
+
+        List<Long> expected = new ArrayList<>(legacyIds);
+        expected.remove(legacyIds.get(3));
+        expected.add(created.getId());
+        assertThat(changed).containsExactlyElementsOf(expected);
+        assertThat(deleted).containsExactly(legacyIds.get(3));
+
+        // Caught up: nothing more until the next write
+        NoteChangesResponse after = noteService.changesSince(userId, cursor, 10);
+        assertThat(after.getChanged()).isEmpty();
+        assertThat(after.getDeleted()).isEmpty();
+    }
+}
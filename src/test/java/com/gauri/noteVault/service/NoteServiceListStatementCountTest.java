@@ -0,0 +1,116 @@
+package com.gauri.noteVault.service;
+
+import com.gauri.noteVault.datasource.RecentWrites;
+import com.gauri.noteVault.datasource.Shards;
+import com.gauri.noteVault.dto.NoteResponseDTO;
+import com.gauri.noteVault.entity.Note;
+import com.gauri.noteVault.entity.User;
+import com.gauri.noteVault.entity.UserNoteCounter;
+import com.gauri.noteVault.repository.NoteRepository;
+import com.gauri.noteVault.repository.UserNoteCounterRepository;
+import com.gauri.noteVault.repository.UserRepository;
+import com.gauri.noteVault.search.NoteTagIndex;
+import com.gauri.noteVault.search.TitleSuggester;
+import com.gauri.noteVault.stream.NoteEventBus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Listing a page must not issue one tag query per note
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({NoteServiceImpl.class, NoteDtoCache.class, ChangeSequence.class, NoteTagIndex.class,
+        TitleSuggester.class, RecentWrites.class, Shards.class, NoteEventBus.class, SimpleMeterRegistry.class})
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+class NoteServiceListStatementCountTest {
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private UserNoteCounterRepository counterRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long userId;
+
+    @BeforeEach
+    void seedNotes() {
+        User user = userRepository.save(User.builder()
+                .username("statements")
+                .password("hash")
+                .roles("USER")
+                .build());
+        userId = user.getId();
+
+        for (int i = 0; i < 120; i++) {
+            noteRepository.save(Note.builder()
+                    .title("Note " + i)
+                    .content("Content " + i)
+                    .tags(List.of("work", "tag-" + i))
+                    .user(user)
+                    .build());
+        }
+        // What the write path keeps in step with every note insert and delete
+        counterRepository.save(new UserNoteCounter(userId, 120, 120L));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 50, 100})
+    void listIssuesSameStatementCountForAnyPageSize(int size) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Slice<NoteResponseDTO> slice = noteService.list(userId, null, null, null, PageRequest.of(0, size), false, true);
+
+        assertThat(slice.getContent()).hasSize(size);
+        assertThat(slice).isInstanceOfSatisfying(Page.class, page -> assertThat(page.getTotalElements()).isEqualTo(120));
+        assertThat(slice.getContent()).allSatisfy(dto -> assertThat(dto.getTags()).contains("work").hasSize(2));
+        // page query + note counter lookup + one batched tag query
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 119, 120})
+    void listWithoutTotalSkipsCountingAndReportsNextPage(int size) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Slice<NoteResponseDTO> slice = noteService.list(userId, null, null, null, PageRequest.of(0, size), false, false);
+
+        assertThat(slice).isNotInstanceOf(Page.class);
+        assertThat(slice.getContent()).hasSize(size);
+        assertThat(slice.hasNext()).isEqualTo(size < 120);
+        // page query reading size + 1 rows + one batched tag query
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,119 @@
+package com.gauri.noteVault.stream;
+
+import com.gauri.noteVault.dto.NoteEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Which changes a resuming stream is sent, and when it is told to resync instead
+class NoteEventBusTest {
+
+    private static final long USER_ID = 7L;
+
+    private final NoteEventBus bus = new NoteEventBus(3, 60_000);
+
+    @Test
+    void liveEventsReachSubscribers() {
+        Recorder recorder = subscribe(null);
+        publish(1, 2);
+
+        assertThat(recorder.seqs()).containsExactly(1L, 2L);
+        assertThat(recorder.gaps).isZero();
+    }
+
+    @Test
+    void resumeReplaysBufferedChangesAfterLastEventId() {
+        publish(1, 2, 3);
+        Recorder recorder = subscribe(1L);
+        publish(4);
+
+        assertThat(recorder.seqs()).containsExactly(2L, 3L, 4L);
+        assertThat(recorder.gaps).isZero();
+    }
+
+    @Test
+    void resumeOlderThanBufferAsksForResync() {
+        publish(1, 2, 3, 4, 5);
+
+        assertThat(subscribe(1L).gaps).isEqualTo(1);
+        assertThat(subscribe(2L).seqs()).containsExactly(3L, 4L, 5L);
+    }
+
+    @Test
+    void resumeWithoutHistoryAsksForResync() {
+        Recorder recorder = subscribe(42L);
+
+        assertThat(recorder.gaps).isEqualTo(1);
+        assertThat(recorder.seqs()).isEmpty();
+    }
+
+    @Test
+    void resumeAfterALaterChangeThanOnePublishedLateAsksForResync() {
+        publish(1);
+        Recorder first = subscribe(null);
+        publish(3);
+        bus.unsubscribe(USER_ID, first);
+        // The writer of 2 committed before 3 but published after it, once the client had left
+        publish(2);
+
+        assertThat(first.seqs()).containsExactly(3L);
+        Recorder resumed = subscribe(3L);
+        assertThat(resumed.gaps).isEqualTo(1);
+        assertThat(resumed.seqs()).isEmpty();
+    }
+
+    @Test
+    void resumeFromTheLateChangeItselfReplaysTheRest() {
+        Recorder live = subscribe(null);
+        publish(1, 3, 2, 4);
+
+        assertThat(live.seqs()).containsExactly(1L, 3L, 2L, 4L);
+        // Positions past every late change, or at one, lose nothing
+        assertThat(subscribe(4L).gaps).isZero();
+        Recorder fromLate = subscribe(2L);
+        assertThat(fromLate.gaps).isZero();
+        assertThat(fromLate.seqs()).containsExactly(3L, 4L);
+    }
+
+    @Test
+    void unsubscribedListenerGetsNothing() {
+        Recorder recorder = subscribe(null);
+        bus.unsubscribe(USER_ID, recorder);
+        publish(1);
+
+        assertThat(recorder.seqs()).isEmpty();
+    }
+
+    private void publish(long... seqs) {
+        bus.publish(USER_ID, LongStream.of(seqs).mapToObj(seq -> NoteEvent.deleted(seq, seq)).toList());
+    }
+
+    private Recorder subscribe(Long afterSeq) {
+        Recorder recorder = new Recorder();
+        bus.subscribe(USER_ID, afterSeq, recorder);
+        return recorder;
+    }
+
+    private static final class Recorder implements NoteEventBus.Listener {
+        final List<NoteEvent> events = new ArrayList<>();
+        int gaps;
+
+        @Override
+        public void onEvent(NoteEvent event) {
+            events.add(event);
+        }
+
+        @Override
+        public void onReplayGap() {
+            gaps++;
+        }
+
+        List<Long> seqs() {
+            return events.stream().map(NoteEvent::getChangeSeq).toList();
+        }
+    }
+}